@@ -0,0 +1,168 @@
+package net.davidashen.text;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringTokenizer;
+
+import net.davidashen.text.Utf8TexParser.TexParserException;
+
+/**
+ * The hyphenation tables bundled with the sources, and sample texts for them.
+ */
+final class BenchmarkTables {
+	static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private BenchmarkTables() { }
+
+	/**
+	 * Loads a bundled table into a new hyphenator.
+	 */
+	static Hyphenator load(String table) throws IOException, TexParserException {
+		Hyphenator hyphenator = new Hyphenator();
+		if (isUtf8(table)) {
+			Reader reader = new InputStreamReader(open(table), UTF8);
+			try {
+				hyphenator.loadTable(reader);
+			} finally {
+				reader.close();
+			}
+		} else {
+			InputStream in = open(table);
+			try {
+				hyphenator.loadTable(in, codelist(table));
+			} finally {
+				in.close();
+			}
+		}
+		return hyphenator;
+	}
+
+	static boolean isUtf8(String table) {
+		return table.contains("utf8");
+	}
+
+	static InputStream open(String resource) throws IOException {
+		InputStream in = BenchmarkTables.class.getResourceAsStream("/" + resource);
+		if (in == null) {
+			throw new IOException("Missing resource: " + resource);
+		}
+		return in;
+	}
+
+	/**
+	 * The contents of a bundled resource.
+	 */
+	static byte[] read(String resource) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		InputStream in = open(resource);
+		try {
+			byte[] buf = new byte[8192];
+			int len;
+			while ((len = in.read(buf)) != -1) {
+				out.write(buf, 0, len);
+			}
+		} finally {
+			in.close();
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * The code list for a bundled table with one byte codes.
+	 */
+	static int[] codelist(String table) throws IOException {
+		int[] codelist = new int[256];
+		for (int i = 0; i != 256; ++i) {
+			codelist[i] = i;
+		}
+		if (table.startsWith("ru")) {
+			BufferedReader codes = new BufferedReader(new InputStreamReader(open("koicodes.txt"), UTF8));
+			try {
+				String line;
+				while ((line = codes.readLine()) != null) {
+					StringTokenizer tokenizer = new StringTokenizer(line);
+					if (tokenizer.hasMoreTokens()) {
+						String token = tokenizer.nextToken();
+						if (!token.startsWith("%")) {
+							int key = Integer.decode(token).intValue();
+							codelist[key] = tokenizer.hasMoreTokens() ? Integer.decode(tokenizer.nextToken()).intValue() : key;
+						}
+					}
+				}
+			} finally {
+				codes.close();
+			}
+		}
+		return codelist;
+	}
+
+	/**
+	 * The lines of 'The adventures of Sherlock Holmes'.
+	 */
+	static String[] sherlock() throws IOException {
+		List<String> lines = new ArrayList<String>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(open("sherlock.txt"), UTF8));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lines.add(line);
+			}
+		} finally {
+			reader.close();
+		}
+		return lines.toArray(new String[lines.size()]);
+	}
+
+	/**
+	 * A short word in the language of a table.
+	 */
+	static String shortWord(String table) {
+		if (table.startsWith("de")) {
+			return "Trennung";
+		} else if (table.startsWith("ru")) {
+			return "перенос";
+		} else if (table.contains("sv")) {
+			return "avstavning";
+		} else {
+			return "hyphenation";
+		}
+	}
+
+	/**
+	 * A long compound word in the language of a table.
+	 */
+	static String compoundWord(String table) {
+		if (table.startsWith("de")) {
+			return "Donaudampfschifffahrtsgesellschaftskapitänsmützenabzeichen";
+		} else if (table.startsWith("ru")) {
+			return "высокопревосходительство";
+		} else if (table.contains("sv")) {
+			return "realisationsvinstbeskattningsreglerna";
+		} else {
+			return "antidisestablishmentarianism";
+		}
+	}
+
+	/**
+	 * A line of numeric data in markup, with few and short words.
+	 */
+	static String markup() {
+		StringBuilder line = new StringBuilder();
+		for (int row = 0; row < 20; row++) {
+			line.append("<tr><td>").append(1990 + row).append("</td><td>");
+			for (int column = 0; column < 8; column++) {
+				line.append(row * 7919 % 100000).append(' ').append(column * 131 % 1000)
+						.append(',').append(row * 31 % 100).append("; ");
+			}
+			line.append("</td></tr>\n");
+		}
+		return line.toString();
+	}
+}
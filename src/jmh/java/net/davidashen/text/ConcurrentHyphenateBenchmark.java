@@ -0,0 +1,59 @@
+package net.davidashen.text;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of one {@link Hyphenator} shared by all benchmark threads. Every
+ * thread works through the lines of the sherlock text on its own. Use
+ * {@link ScalabilityReport} to run it with an increasing number of threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentHyphenateBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class SharedHyphenator {
+		@Param({"ushyph.tex"})
+		public String table;
+
+		Hyphenator hyphenator;
+		String[] lines;
+
+		@Setup
+		public void setup() throws Exception {
+			hyphenator = BenchmarkTables.load(table);
+			lines = BenchmarkTables.sherlock();
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Position {
+		int line;
+	}
+
+	/**
+	 * One operation is one line of text.
+	 */
+	@Benchmark
+	public String hyphenateLine(SharedHyphenator shared, Position position) {
+		String[] lines = shared.lines;
+		String line = lines[position.line];
+		position.line = (position.line + 1) % lines.length;
+		return shared.hyphenator.hyphenate(line);
+	}
+}
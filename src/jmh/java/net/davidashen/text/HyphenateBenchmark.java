@@ -0,0 +1,78 @@
+package net.davidashen.text;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Throughput of {@link Hyphenator#hyphenate(String)} for every bundled table.
+ * Run with the GC profiler (the default of the jmh task) to see the
+ * allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HyphenateBenchmark {
+
+	@Param({"hyphen.tex", "ushyph.tex", "dehypha.tex", "hyph-sv-utf8.tex", "ruhyphal.tex"})
+	public String table;
+
+	private Hyphenator hyphenator;
+	private String[] sherlock;
+	private String shortWord;
+	private String compoundWord;
+	private String markup;
+
+	@Setup
+	public void setup() throws Exception {
+		hyphenator = BenchmarkTables.load(table);
+		sherlock = BenchmarkTables.sherlock();
+		shortWord = BenchmarkTables.shortWord(table);
+		compoundWord = BenchmarkTables.compoundWord(table);
+		markup = BenchmarkTables.markup();
+	}
+
+	/**
+	 * One operation is the whole novel.
+	 */
+	@Benchmark
+	public void sherlock(Blackhole blackhole) {
+		for (String line : sherlock) {
+			blackhole.consume(hyphenator.hyphenate(line));
+		}
+	}
+
+	@Benchmark
+	public String shortWord() {
+		return hyphenator.hyphenate(shortWord);
+	}
+
+	@Benchmark
+	public String compoundWord() {
+		return hyphenator.hyphenate(compoundWord);
+	}
+
+	@Benchmark
+	public String compoundWordWithLimits() {
+		return hyphenator.hyphenate(compoundWord, 2, 3);
+	}
+
+	@Benchmark
+	public String markup() {
+		return hyphenator.hyphenate(markup);
+	}
+}
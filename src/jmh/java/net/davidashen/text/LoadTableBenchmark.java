@@ -0,0 +1,130 @@
+package net.davidashen.text;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.davidashen.util.ErrorHandler;
+import net.davidashen.util.List;
+import net.davidashen.util.LoggingErrorHandler;
+
+/**
+ * Steady state cost of loading every bundled table, split into parsing the
+ * table into a tree and compiling the tree into a rule set. Tables in UTF-8
+ * are loaded with {@link Hyphenator#loadTable(java.io.Reader)}, all others
+ * with {@link Hyphenator#loadTable(java.io.InputStream, int[])}. The tables
+ * are read into memory first, so file access is not measured.
+ *
+ * @see ColdLoadBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoadTableBenchmark {
+	private static final ErrorHandler ERROR_HANDLER =
+			new LoggingErrorHandler(Logger.getLogger(LoadTableBenchmark.class.getCanonicalName()));
+
+	@Param({"hyphen.tex", "ushyph.tex", "dehypha.tex", "hyph-sv-utf8.tex", "ruhyphal.tex"})
+	public String table;
+
+	private byte[] bytes;
+	private String text;
+	private int[] codelist;
+	private TreeNode parsed;
+	private Map<String, int[]> exceptions;
+	private TreeNode uncompiled;
+
+	@Setup(Level.Trial)
+	public void readTable() throws Exception {
+		bytes = BenchmarkTables.read(table);
+		if (BenchmarkTables.isUtf8(table)) {
+			text = new String(bytes, BenchmarkTables.UTF8);
+		} else {
+			codelist = BenchmarkTables.codelist(table);
+		}
+		exceptions = new HashMap<String, int[]>();
+		parsed = parseInto(exceptions);
+	}
+
+	/**
+	 * The list structure of each node is memoized in the node, so every
+	 * invocation gets a fresh copy of the tree.
+	 */
+	@Setup(Level.Invocation)
+	public void copyTree() {
+		uncompiled = parsed.copy();
+	}
+
+	/**
+	 * Everything a call to loadTable does, including building the transition
+	 * table and the exception table.
+	 */
+	@Benchmark
+	public Hyphenator loadTable() throws Exception {
+		Hyphenator hyphenator = new Hyphenator();
+		if (text != null) {
+			hyphenator.loadTable(new StringReader(text));
+		} else {
+			hyphenator.loadTable(new ByteArrayInputStream(bytes), codelist);
+		}
+		return hyphenator;
+	}
+
+	/**
+	 * Reading the table into a tree.
+	 */
+	@Benchmark
+	public TreeNode parse() throws Exception {
+		return parseInto(new HashMap<String, int[]>());
+	}
+
+	/**
+	 * Converting the tree to the structures used by the hyphenator: the
+	 * lists, built by the scanner, and the transition table and exception
+	 * table.
+	 */
+	@Benchmark
+	public RuleDefinition compile() {
+		TreeNodeScanner scanner = new TreeNodeScanner(uncompiled, exceptions);
+		scanner.getCompiledPatterns();
+		scanner.getExceptionTable();
+		return scanner;
+	}
+
+	/**
+	 * Converting the tree to a single list, as with {@link TreeNode#toList()}.
+	 */
+	@Benchmark
+	public List toList() {
+		return parsed.toList();
+	}
+
+	private TreeNode parseInto(Map<String, int[]> target) throws Exception {
+		TreeNode root = TreeNode.createRoot();
+		if (text != null) {
+			new Utf8TexParser().parse(new StringReader(text), root, target);
+		} else {
+			new ByteScanner(ERROR_HANDLER).scan(new ByteArrayInputStream(bytes), codelist, root, target);
+		}
+		return root;
+	}
+}
@@ -0,0 +1,103 @@
+package net.davidashen.text;
+
+import java.io.File;
+import java.util.Locale;
+
+import org.openjdk.jmh.profile.StackProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+/**
+ * <p>Runs {@link ConcurrentHyphenateBenchmark} with 1, 2, 4 and so on up to the
+ * given number of threads and reports the scaling efficiency, that is the
+ * throughput divided by the number of threads times the single thread
+ * throughput.</p>
+ *
+ * <p>Usage: <code>ScalabilityReport [-threads n] [-locks] [-min-efficiency e]</code></p>
+ *
+ * <ul>
+ * <li><code>-threads</code> the maximum number of threads, the number of processors by default</li>
+ * <li><code>-locks</code> samples the benchmark threads and lists where they
+ * were blocked on a monitor or waiting. On Java 11 and later each run also
+ * writes a flight recording, whose <code>jdk.JavaMonitorEnter</code> and
+ * <code>jdk.ThreadPark</code> events give the monitors and locks that were
+ * contended, with the time spent waiting for them. The profile settings
+ * only record waits of 10 ms or more.</li>
+ * <li><code>-min-efficiency</code> exits with status 1 if the efficiency of
+ * any run is below this value, e.g. 0.8</li>
+ * </ul>
+ *
+ * <p>The stack samples only give hints: they show the threads that happened
+ * to be blocked when sampled, so short waits are rarely seen. Contention
+ * without locks, such as compare-and-set retries or writes to a shared cache
+ * line, shows in neither the samples nor the recording, only as a lower
+ * efficiency.</p>
+ */
+public class ScalabilityReport {
+
+	public static void main(String[] args) throws RunnerException {
+		int maxThreads = Runtime.getRuntime().availableProcessors();
+		boolean locks = false;
+		double minEfficiency = 0;
+		for (int i = 0; i < args.length; i++) {
+			if ("-threads".equals(args[i]) && i + 1 < args.length) {
+				maxThreads = Integer.parseInt(args[++i]);
+			} else if ("-locks".equals(args[i])) {
+				locks = true;
+			} else if ("-min-efficiency".equals(args[i]) && i + 1 < args.length) {
+				minEfficiency = Double.parseDouble(args[++i]);
+			} else {
+				System.err.println("usage: ScalabilityReport [-threads n] [-locks] [-min-efficiency e]");
+				System.exit(2);
+			}
+		}
+
+		boolean flightRecorder = locks && !System.getProperty("java.specification.version").startsWith("1.");
+		System.out.printf(Locale.ROOT, "%8s %16s %12s%n", "threads", "ops/s", "efficiency");
+		double single = 0;
+		boolean failed = false;
+		for (int threads = 1; threads <= maxThreads; threads = nextThreadCount(threads, maxThreads)) {
+			ChainedOptionsBuilder options = new OptionsBuilder()
+					.include(ConcurrentHyphenateBenchmark.class.getName())
+					.threads(threads)
+					.verbosity(VerboseMode.SILENT);
+			File recording = new File("scalability-" + threads + "-threads.jfr");
+			if (locks) {
+				options.addProfiler(StackProfiler.class, "lines=3;top=5");
+			}
+			if (flightRecorder) {
+				options.jvmArgsAppend("-XX:StartFlightRecording=settings=profile,filename=" + recording.getAbsolutePath());
+			}
+			RunResult result = new Runner(options.build()).runSingle();
+			double score = result.getPrimaryResult().getScore();
+			if (threads == 1) {
+				single = score;
+			}
+			double efficiency = score / (threads * single);
+			failed |= efficiency < minEfficiency;
+			System.out.printf(Locale.ROOT, "%8d %16.0f %12.2f%n", threads, score, efficiency);
+			if (locks) {
+				for (Result<?> secondary : result.getSecondaryResults().values()) {
+					System.out.println(secondary.extendedInfo());
+				}
+			}
+			if (flightRecorder) {
+				System.out.println("Contended locks: jfr print --events jdk.JavaMonitorEnter,jdk.ThreadPark "
+						+ recording.getAbsolutePath());
+			}
+		}
+		if (failed) {
+			System.err.println("Scaling efficiency below " + minEfficiency);
+			System.exit(1);
+		}
+	}
+
+	private static int nextThreadCount(int threads, int maxThreads) {
+		return threads < maxThreads && threads * 2 > maxThreads ? maxThreads : threads * 2;
+	}
+}
@@ -0,0 +1,71 @@
+package net.davidashen.text;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of an update to the rule set followed by the first word hyphenated
+ * with it. An exception update copies the exception table and a pattern
+ * update recompiles the patterns, so the cost per edit grows with the size
+ * of the rule set; extraExceptions adds exceptions to the table to show how
+ * much. Every invocation updates the same hyphenator, so exception edits
+ * accumulate as they would in a long running application.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UpdateBenchmark {
+
+	@Param({"hyphen.tex", "ushyph.tex", "dehypha.tex", "hyph-sv-utf8.tex", "ruhyphal.tex"})
+	public String table;
+
+	@Param({"0", "10000"})
+	public int extraExceptions;
+
+	private Hyphenator hyphenator;
+	private char[] word;
+	private int[] breaks;
+	private int count;
+
+	@Setup
+	public void setup() throws Exception {
+		hyphenator = BenchmarkTables.load(table);
+		word = BenchmarkTables.shortWord(table).toCharArray();
+		breaks = new int[word.length];
+		String[] words = new String[extraExceptions];
+		for (int i = 0; i < words.length; i++) {
+			words[i] = "ex-cep-tion" + Integer.toString(i, 26).replace('0', 'z');
+		}
+		hyphenator.addExceptions(words);
+	}
+
+	@Benchmark
+	public int addException() {
+		hyphenator.addExceptions("up-date" + (char) ('a' + count++ % 26));
+		return hyphenator.hyphenateWord(word, 0, word.length, 2, 2, breaks);
+	}
+
+	/**
+	 * Adds a pattern of letters already in the table, so the character
+	 * classes are reused.
+	 */
+	@Benchmark
+	public int addPattern() {
+		hyphenator.addPatterns(count++ % 2 == 0 ? "e1e" : "e3e");
+		return hyphenator.hyphenateWord(word, 0, word.length, 2, 2, breaks);
+	}
+}
@@ -0,0 +1,126 @@
+package net.davidashen.text;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Hyphenates text line by line, optionally with several worker threads.
+ * Lines are handed to the workers in chunks, and the output is written in
+ * the order of the input. Only a few chunks per worker are held in memory,
+ * so input of any size can be streamed.
+ */
+final class BatchHyphenator {
+	private static final int CHUNK_LINES = 256;
+	private final Hyphenator hyphenator;
+	private final int leftHyphenMin;
+	private final int rightHyphenMin;
+	private final int threads;
+	private final int chunkLines;
+
+	BatchHyphenator(Hyphenator hyphenator, int leftHyphenMin, int rightHyphenMin, int threads) {
+		this(hyphenator, leftHyphenMin, rightHyphenMin, threads, CHUNK_LINES);
+	}
+
+	BatchHyphenator(Hyphenator hyphenator, int leftHyphenMin, int rightHyphenMin, int threads, int chunkLines) {
+		this.hyphenator = hyphenator;
+		this.leftHyphenMin = leftHyphenMin;
+		this.rightHyphenMin = rightHyphenMin;
+		this.threads = threads;
+		this.chunkLines = chunkLines;
+	}
+
+	/**
+	 * Hyphenates all lines of the input and writes them to the output, each
+	 * followed by a line separator. The output is flushed but not closed.
+	 *
+	 * @param in the input
+	 * @param out the output
+	 * @throws IOException if the input cannot be read or the output cannot be written
+	 */
+	void hyphenate(BufferedReader in, Writer out) throws IOException {
+		if (threads <= 1) {
+			String line;
+			while ((line = in.readLine()) != null) {
+				writeLine(out, hyphenator.hyphenate(line, leftHyphenMin, rightHyphenMin));
+			}
+			out.flush();
+			return;
+		}
+
+		ExecutorService workers = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "BatchHyphenator");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		try {
+			ArrayDeque<Future<String[]>> pending = new ArrayDeque<Future<String[]>>();
+			String[] chunk;
+			while ((chunk = readChunk(in)) != null) {
+				pending.add(workers.submit(hyphenateChunk(chunk)));
+				if (pending.size() >= threads * 2) {
+					writeChunk(out, pending.remove());
+				}
+			}
+			while (!pending.isEmpty()) {
+				writeChunk(out, pending.remove());
+			}
+			out.flush();
+		} finally {
+			workers.shutdownNow();
+		}
+	}
+
+	private String[] readChunk(BufferedReader in) throws IOException {
+		String[] chunk = new String[chunkLines];
+		int count = 0;
+		String line;
+		while (count < chunkLines && (line = in.readLine()) != null) {
+			chunk[count++] = line;
+		}
+		if (count == 0) {
+			return null;
+		}
+		return count == chunkLines ? chunk : Arrays.copyOf(chunk, count);
+	}
+
+	private Callable<String[]> hyphenateChunk(final String[] lines) {
+		return new Callable<String[]>() {
+			public String[] call() {
+				for (int i = 0; i < lines.length; i++) {
+					lines[i] = hyphenator.hyphenate(lines[i], leftHyphenMin, rightHyphenMin);
+				}
+				return lines;
+			}
+		};
+	}
+
+	private static void writeChunk(Writer out, Future<String[]> chunk) throws IOException {
+		try {
+			for (String line : chunk.get()) {
+				writeLine(out, line);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while hyphenating");
+		} catch (ExecutionException e) {
+			throw new IOException("Hyphenation failed", e.getCause());
+		}
+	}
+
+	private static void writeLine(Writer out, String line) throws IOException {
+		out.write(line);
+		out.write(System.lineSeparator());
+	}
+}
@@ -1,21 +1,25 @@
 package net.davidashen.text;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
 
 import net.davidashen.util.ErrorHandler;
-import net.davidashen.util.Hashtable;
-import net.davidashen.util.List;
 
 /* parser for TeX hyphenation tables */
-class ByteScanner implements RuleDefinition {
+class ByteScanner {
 	static final short EOF = 0, LBRAC = 1, RBRAC = 2, PATTERNS = 3, EXCEPTIONS = 4, PATTERN = 5;
 	
 	private final ErrorHandler eh;
-	private final List[] entrytab;
-	private final Hashtable exceptions;
+	private Map<String, int[]> exceptions;
+	private TreeNode root;
+	private LoadSummary summary;
 	
 	private java.io.InputStream in;
 	private int[] codelist;
+	/* input is read in blocks, so that unbuffered streams do not cost a system call per byte */
+	private final byte[] buf = new byte[8192];
+	private int bufpos, buflen;
 	
 	char[] pattern = new char[0];
 	int patlen;
@@ -27,17 +31,20 @@ class ByteScanner implements RuleDefinition {
 	}
 
 	ByteScanner(ErrorHandler eh) {
-		exceptions = new Hashtable();
-		entrytab = new List[256];
-		for (int i = 0; i != 256; ++i) {
-			entrytab[i] = new List();
-		}
 		this.eh = eh;
 	}
 	
-	void scan(java.io.InputStream in, int[] codelist) {
+	/**
+	 * Scans a table, adding its patterns to a tree and its exceptions to a map.
+	 * Patterns and exceptions replace any previous ones for the same letters.
+	 */
+	void scan(java.io.InputStream in, int[] codelist, TreeNode root, Map<String, int[]> exceptions) {
 		this.in = in;
 		this.codelist = codelist;
+		this.root = root;
+		this.exceptions = exceptions;
+		this.summary = new LoadSummary();
+		bufpos = 0; buflen = 0;
 		cc = '\n'; cc1 = -1; prevlno = -1; lno = 0; cno = 0;
 		read();
 		final short EXCEPTIONS = 1, PATTERNS = 2, NONE = 0;
@@ -79,6 +86,11 @@ class ByteScanner implements RuleDefinition {
 		try {
 			in.close();
 		} catch (IOException e) { }
+		if (eh.isWarningEnabled()) {
+			for (String message : summary.getMessages()) {
+				eh.warning(message);
+			}
+		}
 	}
 
 	private short getSym() {
@@ -103,7 +115,7 @@ class ByteScanner implements RuleDefinition {
 								else if (kwd.equals("hyphenation")) return EXCEPTIONS;
 								else if (kwd.equals("endinput")) return EOF;
 								else {
-									warning("shamelessly skipping \\" + kwd);
+									summary.skipped(kwd);
 									continue SYM;
 								}
 							}
@@ -135,14 +147,6 @@ class ByteScanner implements RuleDefinition {
 		}
 	}
 	
-	public int[] getException(String word) {
-		return (int[])exceptions.get(word);
-	}
-	
-	public List getPatternTree(int c) {
-		return entrytab[c % 256];
-	}
-
 	private void read() {
 		if (cc != -1) {
 			if (isNL()) {
@@ -154,21 +158,21 @@ class ByteScanner implements RuleDefinition {
 					cc = cc1;
 					cc1 = -1;
 				} else {
-					cc = in.read();
+					cc = next();
 				}
 				switch (cc) {
 					case '^': {
-						cc1 = in.read();
+						cc1 = next();
 						if (cc1 == '^') { /* ^^... */
 							cc1 = -1;
-							int cc2 = in.read();
+							int cc2 = next();
 							if ((cc = hexval(cc2)) == -1) { /*
 															 * not a lowercase
 															 * hexadecimal digit
 															 */
 								cc = (cc2 + 64) & 127; /* crazy tex rule */
 							} else { /* is a lowercase hexadecimal digit */
-								cc1 = in.read();
+								cc1 = next();
 								if ((cc2 = hexval(cc1)) != -1) { /*
 																 * is a
 																 * two-digit
@@ -192,7 +196,7 @@ class ByteScanner implements RuleDefinition {
 					 * sure whether it does the right thing or not
 					 */
 					case '\\': {
-						cc1 = in.read();
+						cc1 = next();
 						switch (cc1) {
 							case '^':
 							case '\'':
@@ -220,7 +224,7 @@ class ByteScanner implements RuleDefinition {
 								int sep = -1; // separator: nothing, space,
 												// curly bracket, backslash for
 												// dotless i and j
-								int cc0 = in.read(); // base character
+								int cc0 = next(); // base character
 								if ((cc0 == ' ' && !(cc1 == 'l' || cc1 == 'o' || cc1 == 'i')) // \c
 																								// o,
 																								// but
@@ -233,20 +237,19 @@ class ByteScanner implements RuleDefinition {
 																								// ,
 										|| cc0 == '{' || cc0 == '\\') {
 									sep = cc0;
-									cc0 = in.read();
+									cc0 = next();
 									if (sep == '{' && cc0 == '}') sep = -1;
 									cc0 = ' ';
 								}
 								cc1 = -1;
 								key += cc0;
-								if (sep == '{') in.read();
-								Object chrval = acctab.get(new Integer(key));
-								cc = chrval != null ? ((Integer) chrval)
-										.intValue() : cc0; // unless the code
-															// for the accented
-															// character is
-															// known, use
-															// unmodified one
+								if (sep == '{') next();
+								int acc = Arrays.binarySearch(acckeys, key);
+								cc = acc >= 0 ? accvalues[acc] : cc0; // unless the code
+																	// for the accented
+																	// character is
+																	// known, use
+																	// unmodified one
 							}
 								break;
 							default:
@@ -266,6 +269,18 @@ class ByteScanner implements RuleDefinition {
 		}
 	}
 
+	private int next() throws IOException {
+		if (bufpos == buflen) {
+			bufpos = 0;
+			buflen = in.read(buf, 0, buf.length);
+			if (buflen <= 0) {
+				buflen = 0;
+				return -1;
+			}
+		}
+		return buf[bufpos++] & 0xff;
+	}
+
 	private void cc2pat() {
 		if (patlen == pattern.length) {
 			char[] newpattern = new char[patlen * 2 + 1];
@@ -293,7 +308,7 @@ class ByteScanner implements RuleDefinition {
 		if (cc == '\r') {
 			if (cc1 == -1) {
 				try {
-					cc = in.read();
+					cc = next();
 				} catch (java.io.IOException e) {
 					error(e.toString());
 					cc = -1;
@@ -317,46 +332,21 @@ class ByteScanner implements RuleDefinition {
 	}
 	
 	private void readPattern() {
-		List entry = null, level = entrytab[(int) pattern[Character.isDigit(pattern[0]) ? 1 : 0] % 256];
+		char[] segment = new char[patlen];
 		int[] nodevalues = new int[patlen + 1];
-		int ich = 0, inv = 0;
-		java.util.Enumeration eentry = level.elements();
-		for (;;) {
+		int len = 0;
+		for (int ich = 0; ich != patlen; ++ich) {
 			if (Character.isDigit(pattern[ich])) {
-				nodevalues[inv++] = ((int) pattern[ich++] - (int) '0');
-				if (ich == patlen) break;
+				nodevalues[len] = (int) pattern[ich] - (int) '0';
 			} else {
-				nodevalues[inv++] = 0;
-			}
-			for (;;) {
-				if (!eentry.hasMoreElements()) {
-					int[] newnodevalues = new int[inv + 1];
-					for (int jnv = 0; jnv != newnodevalues.length; ++jnv)
-						newnodevalues[jnv] = 0;
-					entry = new List().snoc(new Character(pattern[ich]))
-							.snoc(newnodevalues);
-					level.snoc(entry);
-					level = entry;
-					eentry = level.elements();
-					eentry.nextElement();
-					eentry.nextElement();
-					break;
-				}
-				entry = (List) eentry.nextElement();
-				if (((Character) entry.head()).charValue() == pattern[ich]) {
-					level = entry;
-					eentry = level.elements();
-					eentry.nextElement();
-					eentry.nextElement();
-					break;
-				}
-			}
-			if (++ich == patlen) {
-				nodevalues[inv++] = 0;
-				break;
+				segment[len++] = pattern[ich];
 			}
 		}
-		System.arraycopy(nodevalues, 0, ((int[]) entry.longTail().head()), 0, inv);
+		if (len == 0) return;
+		int[] values = new int[len + 1];
+		System.arraycopy(nodevalues, 0, values, 0, len + 1);
+		String s = new String(segment, 0, len);
+		summary.duplicate(root.insert(s, values), s, values);
 	}
 
 	private void readException() {
@@ -382,18 +372,12 @@ class ByteScanner implements RuleDefinition {
 	}
 
 	private void error(String msg) {
-		if (prevlno != lno) {
+		if (prevlno != lno && eh.isErrorEnabled()) {
 			prevlno = lno; /* one message per line at most */
 			eh.error("(" + lno + "," + cno + "): " + msg);
 		}
 	}
 
-	private void warning(String msg) {
-		if (prevlno != lno) {
-			prevlno = lno; /* one message per line at most */
-			eh.warning("(" + lno + "," + cno + "): " + msg);
-		}
-	}
 	
 	private int hexval(int cc) {
 		switch (cc) {
@@ -420,165 +404,181 @@ class ByteScanner implements RuleDefinition {
 		}
 	}
 	
-	private static final Hashtable acctab = new Hashtable();
+	/* accented character codes, (accent<<8)+base character, in ascending order */
+	private static final int[] acckeys;
+	/* the characters corresponding to acckeys */
+	private static final int[] accvalues;
 	static {
-		/* grave */
-		acctab.put(new Integer(cp2i('`', 'a')), new Integer(0xe0));
-		acctab.put(new Integer(cp2i('`', 'e')), new Integer(0xe8));
-		acctab.put(new Integer(cp2i('`', 'i')), new Integer(0xec));
-		acctab.put(new Integer(cp2i('`', 'o')), new Integer(0xf2));
-		acctab.put(new Integer(cp2i('`', 'u')), new Integer(0xf9));
-		acctab.put(new Integer(cp2i('`', 'w')), new Integer(0x1E81));
-		acctab.put(new Integer(cp2i('`', 'y')), new Integer(0x1EF3));
+		final int[] acctab = {
+			/* grave */
+			'`', 'a', 0xe0,
+			'`', 'e', 0xe8,
+			'`', 'i', 0xec,
+			'`', 'o', 0xf2,
+			'`', 'u', 0xf9,
+			'`', 'w', 0x1E81,
+			'`', 'y', 0x1EF3,
 
-		/* acute */
-		acctab.put(new Integer(cp2i('\'', 'a')), new Integer(0xe1));
-		acctab.put(new Integer(cp2i('\'', 'c')), new Integer(0x0107));
-		acctab.put(new Integer(cp2i('\'', 'e')), new Integer(0xe9));
-		acctab.put(new Integer(cp2i('\'', 'g')), new Integer(0x1F5));
-		acctab.put(new Integer(cp2i('\'', 'i')), new Integer(0xed));
-		acctab.put(new Integer(cp2i('\'', 'k')), new Integer(0x1E31));
-		acctab.put(new Integer(cp2i('\'', 'l')), new Integer(0x13A));
-		acctab.put(new Integer(cp2i('\'', 'm')), new Integer(0x1E3F));
-		acctab.put(new Integer(cp2i('\'', 'n')), new Integer(0x144));
-		acctab.put(new Integer(cp2i('\'', 'o')), new Integer(0xf3));
-		acctab.put(new Integer(cp2i('\'', 'p')), new Integer(0x1E55));
-		acctab.put(new Integer(cp2i('\'', 'r')), new Integer(0x155));
-		acctab.put(new Integer(cp2i('\'', 's')), new Integer(0x15B));
-		acctab.put(new Integer(cp2i('\'', 'u')), new Integer(0xfa));
-		acctab.put(new Integer(cp2i('\'', 'w')), new Integer(0x1E83));
-		acctab.put(new Integer(cp2i('\'', 'y')), new Integer(0xfd));
-		acctab.put(new Integer(cp2i('\'', 'z')), new Integer(0x17A));
+			/* acute */
+			'\'', 'a', 0xe1,
+			'\'', 'c', 0x0107,
+			'\'', 'e', 0xe9,
+			'\'', 'g', 0x1F5,
+			'\'', 'i', 0xed,
+			'\'', 'k', 0x1E31,
+			'\'', 'l', 0x13A,
+			'\'', 'm', 0x1E3F,
+			'\'', 'n', 0x144,
+			'\'', 'o', 0xf3,
+			'\'', 'p', 0x1E55,
+			'\'', 'r', 0x155,
+			'\'', 's', 0x15B,
+			'\'', 'u', 0xfa,
+			'\'', 'w', 0x1E83,
+			'\'', 'y', 0xfd,
+			'\'', 'z', 0x17A,
 
-		/* circuflex */
-		acctab.put(new Integer(cp2i('^', 'a')), new Integer(0xe2));
-		acctab.put(new Integer(cp2i('^', 'c')), new Integer(0x0109));
-		acctab.put(new Integer(cp2i('^', 'e')), new Integer(0xea));
-		acctab.put(new Integer(cp2i('^', 'g')), new Integer(0x011D));
-		acctab.put(new Integer(cp2i('^', 'h')), new Integer(0x0125));
-		acctab.put(new Integer(cp2i('^', 'i')), new Integer(0xee));
-		acctab.put(new Integer(cp2i('^', 'j')), new Integer(0x0135));
-		acctab.put(new Integer(cp2i('^', 'o')), new Integer(0xf4));
-		acctab.put(new Integer(cp2i('^', 's')), new Integer(0x015D));
-		acctab.put(new Integer(cp2i('^', 'u')), new Integer(0xfb));
-		acctab.put(new Integer(cp2i('^', 'w')), new Integer(0x0175));
-		acctab.put(new Integer(cp2i('^', 'y')), new Integer(0x0177));
-		acctab.put(new Integer(cp2i('^', 'z')), new Integer(0x1E91));
+			/* circuflex */
+			'^', 'a', 0xe2,
+			'^', 'c', 0x0109,
+			'^', 'e', 0xea,
+			'^', 'g', 0x011D,
+			'^', 'h', 0x0125,
+			'^', 'i', 0xee,
+			'^', 'j', 0x0135,
+			'^', 'o', 0xf4,
+			'^', 's', 0x015D,
+			'^', 'u', 0xfb,
+			'^', 'w', 0x0175,
+			'^', 'y', 0x0177,
+			'^', 'z', 0x1E91,
 
-		/* dieresis */
-		acctab.put(new Integer(cp2i('"', 'a')), new Integer(0xe4));
-		acctab.put(new Integer(cp2i('"', 'e')), new Integer(0xeb));
-		acctab.put(new Integer(cp2i('"', 'h')), new Integer(0x1E27));
-		acctab.put(new Integer(cp2i('"', 'i')), new Integer(0xef));
-		acctab.put(new Integer(cp2i('"', 'o')), new Integer(0xf6));
-		acctab.put(new Integer(cp2i('"', 't')), new Integer(0x1E97));
-		acctab.put(new Integer(cp2i('"', 'u')), new Integer(0xfc));
-		acctab.put(new Integer(cp2i('"', 'w')), new Integer(0x1E85));
-		acctab.put(new Integer(cp2i('"', 'x')), new Integer(0x1E8D));
-		acctab.put(new Integer(cp2i('"', 'y')), new Integer(0xff));
+			/* dieresis */
+			'"', 'a', 0xe4,
+			'"', 'e', 0xeb,
+			'"', 'h', 0x1E27,
+			'"', 'i', 0xef,
+			'"', 'o', 0xf6,
+			'"', 't', 0x1E97,
+			'"', 'u', 0xfc,
+			'"', 'w', 0x1E85,
+			'"', 'x', 0x1E8D,
+			'"', 'y', 0xff,
 
-		/* Hungarian umlaut */
-		acctab.put(new Integer(cp2i('H', 'o')), new Integer(0x151));
-		acctab.put(new Integer(cp2i('H', 'u')), new Integer(0x171));
+			/* Hungarian umlaut */
+			'H', 'o', 0x151,
+			'H', 'u', 0x171,
 
-		/* tilde */
-		acctab.put(new Integer(cp2i('~', 'a')), new Integer(0xE3));
-		acctab.put(new Integer(cp2i('~', 'e')), new Integer(0x1EBD));
-		acctab.put(new Integer(cp2i('~', 'i')), new Integer(0x0129));
-		acctab.put(new Integer(cp2i('~', 'n')), new Integer(0x00F1));
-		acctab.put(new Integer(cp2i('~', 'o')), new Integer(0x00F5));
-		acctab.put(new Integer(cp2i('~', 'u')), new Integer(0x0169));
-		acctab.put(new Integer(cp2i('~', 'v')), new Integer(0x1E7D));
-		acctab.put(new Integer(cp2i('~', 'y')), new Integer(0x1EF9));
+			/* tilde */
+			'~', 'a', 0xE3,
+			'~', 'e', 0x1EBD,
+			'~', 'i', 0x0129,
+			'~', 'n', 0x00F1,
+			'~', 'o', 0x00F5,
+			'~', 'u', 0x0169,
+			'~', 'v', 0x1E7D,
+			'~', 'y', 0x1EF9,
 
-		/* breve */
-		acctab.put(new Integer(cp2i('u', 'a')), new Integer(0x103));
-		acctab.put(new Integer(cp2i('u', 'e')), new Integer(0x115));
-		acctab.put(new Integer(cp2i('u', 'g')), new Integer(0x11F));
-		acctab.put(new Integer(cp2i('u', 'i')), new Integer(0x12D));
-		acctab.put(new Integer(cp2i('u', 'o')), new Integer(0x14F));
-		acctab.put(new Integer(cp2i('u', 'u')), new Integer(0x16D));
+			/* breve */
+			'u', 'a', 0x103,
+			'u', 'e', 0x115,
+			'u', 'g', 0x11F,
+			'u', 'i', 0x12D,
+			'u', 'o', 0x14F,
+			'u', 'u', 0x16D,
 
-		/* caron */
-		acctab.put(new Integer(cp2i('v', 'a')), new Integer(0x1CE));
-		acctab.put(new Integer(cp2i('v', ' ')), new Integer(0x2C7));
-		acctab.put(new Integer(cp2i('v', 'c')), new Integer(0x10D));
-		acctab.put(new Integer(cp2i('v', 'd')), new Integer(0x10F));
-		acctab.put(new Integer(cp2i('v', 'e')), new Integer(0x11B));
-		acctab.put(new Integer(cp2i('v', 'g')), new Integer(0x1E7));
-		acctab.put(new Integer(cp2i('v', 'i')), new Integer(0x1D0));
-		acctab.put(new Integer(cp2i('v', 'j')), new Integer(0x1F0));
-		acctab.put(new Integer(cp2i('v', 'k')), new Integer(0x1E9));
-		acctab.put(new Integer(cp2i('v', 'l')), new Integer(0x13E));
-		acctab.put(new Integer(cp2i('v', 'n')), new Integer(0x148));
-		acctab.put(new Integer(cp2i('v', 'o')), new Integer(0x1D2));
-		acctab.put(new Integer(cp2i('v', 'r')), new Integer(0x159));
-		acctab.put(new Integer(cp2i('v', 's')), new Integer(0x161));
-		acctab.put(new Integer(cp2i('v', 't')), new Integer(0x165));
-		acctab.put(new Integer(cp2i('v', 'u')), new Integer(0x1D4));
-		acctab.put(new Integer(cp2i('v', 'z')), new Integer(0x17E));
+			/* caron */
+			'v', 'a', 0x1CE,
+			'v', ' ', 0x2C7,
+			'v', 'c', 0x10D,
+			'v', 'd', 0x10F,
+			'v', 'e', 0x11B,
+			'v', 'g', 0x1E7,
+			'v', 'i', 0x1D0,
+			'v', 'j', 0x1F0,
+			'v', 'k', 0x1E9,
+			'v', 'l', 0x13E,
+			'v', 'n', 0x148,
+			'v', 'o', 0x1D2,
+			'v', 'r', 0x159,
+			'v', 's', 0x161,
+			'v', 't', 0x165,
+			'v', 'u', 0x1D4,
+			'v', 'z', 0x17E,
 
-		/* cedilla */
-		acctab.put(new Integer(cp2i('c', 'c')), new Integer(0xe7));
-		acctab.put(new Integer(cp2i('c', 'd')), new Integer(0x1E11));
-		acctab.put(new Integer(cp2i('c', 'g')), new Integer(0x123));
-		acctab.put(new Integer(cp2i('c', 'h')), new Integer(0x1E29));
-		acctab.put(new Integer(cp2i('c', 'k')), new Integer(0x137));
-		acctab.put(new Integer(cp2i('c', 'l')), new Integer(0x13C));
-		acctab.put(new Integer(cp2i('c', 'n')), new Integer(0x146));
-		acctab.put(new Integer(cp2i('c', 'r')), new Integer(0x157));
-		acctab.put(new Integer(cp2i('c', 's')), new Integer(0x15F));
-		acctab.put(new Integer(cp2i('c', 't')), new Integer(0x163));
+			/* cedilla */
+			'c', 'c', 0xe7,
+			'c', 'd', 0x1E11,
+			'c', 'g', 0x123,
+			'c', 'h', 0x1E29,
+			'c', 'k', 0x137,
+			'c', 'l', 0x13C,
+			'c', 'n', 0x146,
+			'c', 'r', 0x157,
+			'c', 's', 0x15F,
+			'c', 't', 0x163,
 
-		/* dot below */
-		acctab.put(new Integer(cp2i('d', 'a')), new Integer(0x1EA1));
-		acctab.put(new Integer(cp2i('d', 'b')), new Integer(0x1E05));
-		acctab.put(new Integer(cp2i('d', 'd')), new Integer(0x1E0D));
-		acctab.put(new Integer(cp2i('d', 'e')), new Integer(0x1EB9));
-		acctab.put(new Integer(cp2i('d', 'h')), new Integer(0x1E25));
-		acctab.put(new Integer(cp2i('d', 'i')), new Integer(0x1ECB));
-		acctab.put(new Integer(cp2i('d', 'k')), new Integer(0x1E33));
-		acctab.put(new Integer(cp2i('d', 'l')), new Integer(0x1E37));
-		acctab.put(new Integer(cp2i('d', 'm')), new Integer(0x1E43));
-		acctab.put(new Integer(cp2i('d', 'n')), new Integer(0x1E47));
-		acctab.put(new Integer(cp2i('d', 'o')), new Integer(0x1ECD));
-		acctab.put(new Integer(cp2i('d', 'r')), new Integer(0x1E5B));
-		acctab.put(new Integer(cp2i('d', 's')), new Integer(0x1E63));
-		acctab.put(new Integer(cp2i('d', 't')), new Integer(0x1E6D));
-		acctab.put(new Integer(cp2i('d', 'u')), new Integer(0x1EE5));
-		acctab.put(new Integer(cp2i('d', 'v')), new Integer(0x1E7F));
-		acctab.put(new Integer(cp2i('d', 'w')), new Integer(0x1E89));
-		acctab.put(new Integer(cp2i('d', 'y')), new Integer(0x1EF5));
-		acctab.put(new Integer(cp2i('d', 'z')), new Integer(0x1E93));
+			/* dot below */
+			'd', 'a', 0x1EA1,
+			'd', 'b', 0x1E05,
+			'd', 'd', 0x1E0D,
+			'd', 'e', 0x1EB9,
+			'd', 'h', 0x1E25,
+			'd', 'i', 0x1ECB,
+			'd', 'k', 0x1E33,
+			'd', 'l', 0x1E37,
+			'd', 'm', 0x1E43,
+			'd', 'n', 0x1E47,
+			'd', 'o', 0x1ECD,
+			'd', 'r', 0x1E5B,
+			'd', 's', 0x1E63,
+			'd', 't', 0x1E6D,
+			'd', 'u', 0x1EE5,
+			'd', 'v', 0x1E7F,
+			'd', 'w', 0x1E89,
+			'd', 'y', 0x1EF5,
+			'd', 'z', 0x1E93,
 
-		/* dot above */
-		acctab.put(new Integer(cp2i('.', 'c')), new Integer(0x10B));
-		acctab.put(new Integer(cp2i('.', 'e')), new Integer(0x117));
-		acctab.put(new Integer(cp2i('.', 'g')), new Integer(0x121));
-		acctab.put(new Integer(cp2i('.', 'l')), new Integer(0x140));
-		acctab.put(new Integer(cp2i('.', 'z')), new Integer(0x17C));
+			/* dot above */
+			'.', 'c', 0x10B,
+			'.', 'e', 0x117,
+			'.', 'g', 0x121,
+			'.', 'l', 0x140,
+			'.', 'z', 0x17C,
 
-		/* ring */
-		acctab.put(new Integer(cp2i('r', 'a')), new Integer(0xE5));
-		acctab.put(new Integer(cp2i('r', 'u')), new Integer(0x16F));
-		acctab.put(new Integer(cp2i('r', 'w')), new Integer(0x1E98));
-		acctab.put(new Integer(cp2i('r', 'y')), new Integer(0x1E99));
+			/* ring */
+			'r', 'a', 0xE5,
+			'r', 'u', 0x16F,
+			'r', 'w', 0x1E98,
+			'r', 'y', 0x1E99,
 
-		/* ogonek */
-		acctab.put(new Integer(cp2i('k', 'a')), new Integer(0x105));
-		acctab.put(new Integer(cp2i('k', 'e')), new Integer(0x119));
-		acctab.put(new Integer(cp2i('k', 'i')), new Integer(0x12F));
-		acctab.put(new Integer(cp2i('k', 'o')), new Integer(0x1EB));
-		acctab.put(new Integer(cp2i('k', 'u')), new Integer(0x173));
+			/* ogonek */
+			'k', 'a', 0x105,
+			'k', 'e', 0x119,
+			'k', 'i', 0x12F,
+			'k', 'o', 0x1EB,
+			'k', 'u', 0x173,
 
-		/* special codes */
-		acctab.put(new Integer(cp2i('a', 'a')), new Integer(0xe5));
-		acctab.put(new Integer(cp2i('a', 'e')), new Integer(0xe6));
-		acctab.put(new Integer(cp2i('i', ' ')), new Integer(0x131));
-		acctab.put(new Integer(cp2i('l', ' ')), new Integer(0x142));
-		acctab.put(new Integer(cp2i('o', ' ')), new Integer(0xf8));
-		acctab.put(new Integer(cp2i('o', 'e')), new Integer(0x153));
-		acctab.put(new Integer(cp2i('s', 's')), new Integer(0xdf));
+			/* special codes */
+			'a', 'a', 0xe5,
+			'a', 'e', 0xe6,
+			'i', ' ', 0x131,
+			'l', ' ', 0x142,
+			'o', ' ', 0xf8,
+			'o', 'e', 0x153,
+			's', 's', 0xdf
+		};
+		long[] entries = new long[acctab.length / 3];
+		for (int i = 0; i != entries.length; ++i) {
+			entries[i] = ((long) cp2i(acctab[3 * i], acctab[3 * i + 1]) << 32) + acctab[3 * i + 2];
+		}
+		Arrays.sort(entries);
+		acckeys = new int[entries.length];
+		accvalues = new int[entries.length];
+		for (int i = 0; i != entries.length; ++i) {
+			acckeys[i] = (int) (entries[i] >>> 32);
+			accvalues[i] = (int) entries[i];
+		}
 	}
 
 }
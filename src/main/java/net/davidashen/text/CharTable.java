@@ -0,0 +1,64 @@
+package net.davidashen.text;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link Character#isLetter(char)} and {@link Character#toLowerCase(char)}
+ * for the whole Basic Multilingual Plane, precomputed in a two level table.
+ * The first level is indexed by the high byte of a character and selects a
+ * block of 256 entries, the second by the low byte. Blocks with the same
+ * entries are stored once, which keeps the table at a few dozen kilobytes.
+ *
+ * <p>An entry holds the letter flag in bit 16 and the difference between
+ * the lowercase form and the character in the low 16 bits, so that the
+ * large blocks of letters without case are all alike.</p>
+ */
+final class CharTable {
+	private static final int LETTER = 1 << 16;
+	private static final int[][] BLOCKS = new int[256][];
+	// The characters that are not their own lowercase form, in order
+	private static final char[] CASED;
+
+	static {
+		Map<String, int[]> distinct = new HashMap<String, int[]>();
+		StringBuilder cased = new StringBuilder();
+		for (int high = 0; high < 256; high++) {
+			int[] block = new int[256];
+			for (int low = 0; low < 256; low++) {
+				char c = (char) (high << 8 | low);
+				block[low] = (Character.isLetter(c) ? LETTER : 0) | ((Character.toLowerCase(c) - c) & 0xffff);
+				if (Character.toLowerCase(c) != c) {
+					cased.append(c);
+				}
+			}
+			String key = Arrays.toString(block);
+			int[] shared = distinct.get(key);
+			if (shared == null) {
+				distinct.put(key, block);
+				shared = block;
+			}
+			BLOCKS[high] = shared;
+		}
+		CASED = cased.toString().toCharArray();
+	}
+
+	private CharTable() { }
+
+	static boolean isLetter(char c) {
+		return (BLOCKS[c >>> 8][c & 0xff] & LETTER) != 0;
+	}
+
+	static char toLowerCase(char c) {
+		return (char) (c + BLOCKS[c >>> 8][c & 0xff]);
+	}
+
+	/**
+	 * @return the characters whose lowercase form is another character, in
+	 *         order. A copy, a few thousand characters long.
+	 */
+	static char[] casedCharacters() {
+		return CASED.clone();
+	}
+}
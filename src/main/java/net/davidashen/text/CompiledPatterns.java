@@ -0,0 +1,310 @@
+package net.davidashen.text;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * <p>The patterns of a tree compiled into a transition table. Each state is
+ * a node of the tree, and its row holds the next state for each character of
+ * the alphabet of the patterns, so a word is matched with one array access
+ * per character instead of a search through the list structure.</p>
+ *
+ * <p>Characters of a word are mapped to the alphabet with a two level table
+ * like {@link CharTable}, which gives the class of the lowercase form of a
+ * character in one access. Only blocks of 256 characters that contain
+ * letters of the alphabet, or their uppercase forms, are stored. The table
+ * is filled from the alphabet and the characters that have a lowercase
+ * form, and shared with the patterns compiled before an update if the
+ * alphabet is the same.</p>
+ *
+ * <p>The transition table takes 2 bytes per state and class, so it grows
+ * with both the number of patterns and the size of their alphabet. It is
+ * limited to 65535 states and {@value #MAX_TABLE_BYTES} bytes, larger trees
+ * are not compiled and are matched through the list structure. The heap
+ * used is included in {@link RuleSetMXBean#getEstimatedBytes()}.</p>
+ */
+final class CompiledPatterns {
+	private static final int MAX_STATES = Character.MAX_VALUE;
+	/**
+	 * The largest transition table compiled, in bytes.
+	 */
+	static final long MAX_TABLE_BYTES = 1 << 24;
+	private static final char[] NO_CLASSES = new char[256];
+	// The characters of the patterns, in order
+	private final char[] alphabet;
+	// Character classes by high and low byte: 0 for characters whose lowercase form is not
+	// in any pattern, then 1, 2... for the alphabet in order. Not modified after construction.
+	private final char[][] classes;
+	private final int classCount;
+	// next[state * classCount + class], 0 if there is no transition (no state leads to the root)
+	private final char[] next;
+	// Values of the pattern ending in each state, or null if there is none
+	private final int[][] values;
+
+	private CompiledPatterns(TreeNode root, int stateCount, char[] alphabet, CompiledPatterns previous) {
+		this.alphabet = alphabet;
+		this.classCount = alphabet.length + 1;
+		// Classes of the characters in the patterns
+		char[][] alphabetClasses = newTable();
+		for (int i = 0; i < alphabet.length; i++) {
+			set(alphabetClasses, alphabet[i], (char) (i + 1));
+		}
+		if (previous != null && Arrays.equals(previous.alphabet, alphabet)) {
+			this.classes = previous.classes;
+		} else {
+			// Classes of all characters, by their lowercase form. A character
+			// is either its own lowercase form or one of the cased characters.
+			this.classes = newTable();
+			for (char c : alphabet) {
+				if (CharTable.toLowerCase(c) == c) {
+					set(classes, c, get(alphabetClasses, c));
+				}
+			}
+			for (char c : CharTable.casedCharacters()) {
+				set(classes, c, get(alphabetClasses, CharTable.toLowerCase(c)));
+			}
+		}
+		this.next = new char[stateCount * classCount];
+		this.values = new int[stateCount][];
+
+		// Number states breadth first, the root is state 0
+		ArrayList<TreeNode> states = new ArrayList<TreeNode>(stateCount);
+		states.add(root);
+		for (int state = 0; state < states.size(); state++) {
+			TreeNode node = states.get(state);
+			if (!node.isBlank() && hasValues(node.getHyphenation())) {
+				values[state] = node.getHyphenation();
+			}
+			for (TreeNode child : node.getChildren()) {
+				next[state * classCount + get(alphabetClasses, child.getLastCharacter())] = (char) states.size();
+				states.add(child);
+			}
+		}
+	}
+
+	private static char[][] newTable() {
+		char[][] table = new char[256][];
+		Arrays.fill(table, NO_CLASSES);
+		return table;
+	}
+
+	private static char get(char[][] table, char c) {
+		return table[c >>> 8][c & 0xff];
+	}
+
+	private static void set(char[][] table, char c, char value) {
+		if (table[c >>> 8] == NO_CLASSES) {
+			if (value == 0) {
+				return;
+			}
+			table[c >>> 8] = new char[256];
+		}
+		table[c >>> 8][c & 0xff] = value;
+	}
+
+	/**
+	 * Compiles the patterns of a tree.
+	 *
+	 * @param root the root of the tree
+	 * @return the compiled patterns, or null if there are too many
+	 */
+	static CompiledPatterns compile(TreeNode root) {
+		return compile(root, null);
+	}
+
+	/**
+	 * Compiles the patterns of a tree, sharing the character classes of
+	 * other compiled patterns if they have the same alphabet.
+	 *
+	 * @param root the root of the tree
+	 * @param previous the other patterns, or null
+	 * @return the compiled patterns, or null if there are too many
+	 */
+	static CompiledPatterns compile(TreeNode root, CompiledPatterns previous) {
+		return compile(root, previous, MAX_TABLE_BYTES);
+	}
+
+	/**
+	 * Compiles the patterns of a tree into a table of limited size.
+	 *
+	 * @param root the root of the tree
+	 * @param previous the other patterns, or null
+	 * @param maxTableBytes the largest transition table to compile
+	 * @return the compiled patterns, or null if there are too many
+	 */
+	static CompiledPatterns compile(TreeNode root, CompiledPatterns previous, long maxTableBytes) {
+		ArrayList<TreeNode> nodes = nodes(root);
+		int stateCount = 1 + nodes.size();
+		if (stateCount > MAX_STATES) {
+			return null;
+		}
+		BitSet letters = new BitSet();
+		for (TreeNode node : nodes) {
+			letters.set(node.getLastCharacter());
+		}
+		if (2L * stateCount * (letters.cardinality() + 1) > maxTableBytes) {
+			return null;
+		}
+		char[] alphabet = new char[letters.cardinality()];
+		for (int i = 0, c = letters.nextSetBit(0); c >= 0; i++, c = letters.nextSetBit(c + 1)) {
+			alphabet[i] = (char) c;
+		}
+		return new CompiledPatterns(root, stateCount, alphabet, previous);
+	}
+
+	/**
+	 * All nodes of the tree, not including the root.
+	 */
+	private static ArrayList<TreeNode> nodes(TreeNode root) {
+		ArrayList<TreeNode> nodes = new ArrayList<TreeNode>();
+		ArrayList<TreeNode> parents = new ArrayList<TreeNode>();
+		parents.add(root);
+		while (!parents.isEmpty()) {
+			TreeNode parent = parents.remove(parents.size() - 1);
+			for (TreeNode child : parent.getChildren()) {
+				nodes.add(child);
+				parents.add(child);
+			}
+		}
+		return nodes;
+	}
+
+	private static boolean hasValues(int[] hyphenation) {
+		for (int value : hyphenation) {
+			if (value != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Applies the patterns to the lowercase form of a word, like
+	 * Hyphenator.applyHyphenationRules.
+	 *
+	 * @param chars characters containing the word
+	 * @param offset the start of the word
+	 * @param length the length of the word
+	 * @param starts the number of positions of the word surrounded by '.'
+	 *            where patterns are applied, at most length. Points after
+	 *            starts - 2 are incomplete if less.
+	 * @return hyphen qualification points for the word
+	 */
+	int[] apply(char[] chars, int offset, int length, int starts) {
+		int[] hyphenQualificationPoints = new int[length + 3];
+		apply(chars, offset, length, starts, new char[length + 2], hyphenQualificationPoints);
+
+		int[] newvalues = new int[length];
+		System.arraycopy(hyphenQualificationPoints, 2, newvalues, 0, length);
+		return newvalues;
+	}
+
+	/**
+	 * Applies the patterns to the lowercase form of a word, into arrays
+	 * supplied by the caller.
+	 *
+	 * @param chars characters containing the word
+	 * @param offset the start of the word
+	 * @param length the length of the word
+	 * @param starts see {@link #apply(char[], int, int, int)}
+	 * @param word receives the word surrounded by '.', as classes. At least
+	 *            length + 2 long.
+	 * @param hyphenQualificationPoints receives the value of the point after
+	 *            character i of the word at i + 2. At least length + 3 long.
+	 */
+	void apply(char[] chars, int offset, int length, int starts, char[] word, int[] hyphenQualificationPoints) {
+		toClasses(chars, offset, length, word);
+		Arrays.fill(hyphenQualificationPoints, 0, length + 3, 0);
+		for (int istart = 0; istart < starts; istart++) {
+			applyAt(word, length + 2, istart, hyphenQualificationPoints);
+		}
+	}
+
+	/**
+	 * Finds whether the patterns allow a hyphen at any point in a range of
+	 * a word. Patterns are applied one start at a time, and the search
+	 * stops at the first point with an odd value that no later start can
+	 * change.
+	 *
+	 * @param chars characters containing the word
+	 * @param offset the start of the word
+	 * @param length the length of the word
+	 * @param first the first point of the range, 0 is the point after the first character
+	 * @param last the last point of the range, at most length - 2
+	 * @return true if a point in the range has an odd value
+	 */
+	boolean hasOddPoint(char[] chars, int offset, int length, int first, int last) {
+		char[] word = new char[length + 2];
+		toClasses(chars, offset, length, word);
+		int[] hyphenQualificationPoints = new int[length + 3];
+		// Point i is at i + 2, and complete once the patterns starting there are applied
+		int starts = Math.min(last + 3, length);
+		for (int istart = 0; istart < starts; istart++) {
+			applyAt(word, length + 2, istart, hyphenQualificationPoints);
+			if (istart >= first + 2 && hyphenQualificationPoints[istart] % 2 == 1) {
+				return true;
+			}
+		}
+		for (int point = Math.max(first, starts - 2); point <= last; point++) {
+			if (hyphenQualificationPoints[point + 2] % 2 == 1) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Converts a word to classes, surrounded by '.'.
+	 */
+	private void toClasses(char[] chars, int offset, int length, char[] word) {
+		word[0] = word[length + 1] = get(classes, '.');
+		for (int i = 0; i < length; i++) {
+			char c = chars[offset + i];
+			word[i + 1] = classes[c >>> 8][c & 0xff];
+		}
+	}
+
+	/**
+	 * Applies the patterns starting at one position of a word.
+	 */
+	private void applyAt(char[] word, int wordLength, int istart, int[] hyphenQualificationPoints) {
+		int state = 0;
+		for (int i = istart; i < wordLength; i++) {
+			state = next[state * classCount + word[i]];
+			if (state == 0) {
+				break;
+			}
+			int[] nodevalues = values[state];
+			if (nodevalues != null) {
+				for (int inv = 0; inv < nodevalues.length; inv++) {
+					if (nodevalues[inv] > hyphenQualificationPoints[istart + inv]) {
+						hyphenQualificationPoints[istart + inv] = nodevalues[inv];
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the number of states, including the root
+	 */
+	int getStateCount() {
+		return values.length;
+	}
+
+	/**
+	 * @return the estimated heap used by the table, in bytes
+	 */
+	long estimateBytes() {
+		// the values arrays belong to the tree
+		long bytes = HeapEstimate.object(4, 4) + HeapEstimate.array(2, alphabet.length)
+				+ HeapEstimate.array(HeapEstimate.REFERENCE, classes.length);
+		for (int high = 0; high < classes.length; high++) {
+			if (classes[high] != NO_CLASSES) {
+				bytes += HeapEstimate.array(2, classes[high].length);
+			}
+		}
+		return bytes + HeapEstimate.array(2, next.length) + HeapEstimate.array(HeapEstimate.REFERENCE, values.length);
+	}
+}
@@ -0,0 +1,116 @@
+package net.davidashen.text;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>Exceptions added or removed since a rule set was parsed, as a stack of
+ * immutable layers. Each update adds a layer on top of those of the rule set
+ * it was made from, which both rule sets then share, so an update costs the
+ * number of words it changes rather than the number of edits so far.</p>
+ *
+ * <p>A new layer is merged with the layers below it that are no larger, like
+ * a binary counter, so there are at most log2(n) layers for n edits and each
+ * edit is copied at most log2(n) times.</p>
+ */
+final class ExceptionEdits {
+	/**
+	 * The value of a removed exception.
+	 */
+	static final int[] REMOVED = new int[0];
+	// Edits of this layer, not modified after construction
+	private final Map<String, int[]> edits;
+	// Layers below this one, or null
+	private final ExceptionEdits below;
+
+	private ExceptionEdits(Map<String, int[]> edits, ExceptionEdits below) {
+		this.edits = edits;
+		this.below = below;
+	}
+
+	/**
+	 * Adds a layer of edits.
+	 *
+	 * @param edits edits of a rule set, or null if there are none
+	 * @param update the words to add, with their hyphenation, or to remove
+	 *            with {@link #REMOVED}. Not modified afterwards.
+	 * @return the edits with the update on top
+	 */
+	static ExceptionEdits with(ExceptionEdits edits, Map<String, int[]> update) {
+		Map<String, int[]> layer = update;
+		ExceptionEdits below = edits;
+		while (below != null && below.edits.size() <= layer.size()) {
+			Map<String, int[]> merged = new HashMap<String, int[]>(below.edits);
+			merged.putAll(layer);
+			layer = merged;
+			below = below.below;
+		}
+		return new ExceptionEdits(layer, below);
+	}
+
+	/**
+	 * @param word the word
+	 * @return the hyphenation of the word, {@link #REMOVED} if its exception
+	 *         was removed, or null if it was not edited
+	 */
+	int[] get(String word) {
+		for (ExceptionEdits layer = this; layer != null; layer = layer.below) {
+			int[] edited = layer.edits.get(word);
+			if (edited != null) {
+				return edited;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Applies the edits to a map of exceptions.
+	 *
+	 * @param exceptions the map
+	 */
+	void applyTo(Map<String, int[]> exceptions) {
+		if (below != null) {
+			below.applyTo(exceptions);
+		}
+		for (Map.Entry<String, int[]> edit : edits.entrySet()) {
+			if (edit.getValue() == REMOVED) {
+				exceptions.remove(edit.getKey());
+			} else {
+				exceptions.put(edit.getKey(), edit.getValue());
+			}
+		}
+	}
+
+	/**
+	 * @return the latest edit of each word
+	 */
+	Map<String, int[]> toMap() {
+		Map<String, int[]> all = new HashMap<String, int[]>();
+		for (ExceptionEdits layer = this; layer != null; layer = layer.below) {
+			for (Map.Entry<String, int[]> edit : layer.edits.entrySet()) {
+				if (!all.containsKey(edit.getKey())) {
+					all.put(edit.getKey(), edit.getValue());
+				}
+			}
+		}
+		return all;
+	}
+
+	/**
+	 * @return the layers, from the top
+	 */
+	int getLayerCount() {
+		return 1 + (below == null ? 0 : below.getLayerCount());
+	}
+
+	/**
+	 * Estimate the heap used by the edits. Layers shared with other rule sets
+	 * are included.
+	 *
+	 * @return the estimated number of bytes
+	 */
+	long estimateBytes() {
+		long bytes = HeapEstimate.object(2, 0) + TreeNodeScanner.estimateBytes(edits);
+		return below == null ? bytes : bytes + below.estimateBytes();
+	}
+}
@@ -0,0 +1,220 @@
+package net.davidashen.text;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The exceptions of a rule set in an open addressing hash table, which
+ * looks up the lowercase form of a slice of a char array without creating
+ * a string. Each character is lowercased with {@link CharTable}, which is
+ * the same as {@link String#toLowerCase()} except in the cases listed by
+ * {@link #isLowerCasedPerChar(char[], int, int)}.
+ *
+ * <p>The hyphenation of each word is also stored as a mask, see
+ * {@link Hyphenator#hyphenationMask(char[], int, int, int, int)}.</p>
+ *
+ * <p>A table is not modified after construction. An update creates a new
+ * table from the entries of this one, see {@link #with(Map)}.</p>
+ */
+final class ExceptionTable {
+	private final char[][] keys;
+	private final int[][] values;
+	private final long[] masks;
+	private final int mask;
+
+	/**
+	 * @param exceptions the exceptions by word
+	 */
+	ExceptionTable(Map<String, int[]> exceptions) {
+		this(exceptions.size());
+		for (Map.Entry<String, int[]> entry : exceptions.entrySet()) {
+			put(entry.getKey().toCharArray(), entry.getValue(), toMask(entry.getValue()));
+		}
+	}
+
+	/**
+	 * @param size the number of exceptions the table must hold
+	 */
+	private ExceptionTable(int size) {
+		// at most half full
+		int capacity = Integer.highestOneBit(Math.max(size, 1) * 2) * 2;
+		this.keys = new char[capacity][];
+		this.values = new int[capacity][];
+		this.masks = new long[capacity];
+		this.mask = capacity - 1;
+	}
+
+	/**
+	 * Creates a table with exceptions added or removed. The entries of this
+	 * table are copied without converting them back to strings, so the cost
+	 * is one insert per exception of the new table.
+	 *
+	 * @param edits the words to add, with their hyphenation, or to remove
+	 *            with {@link ExceptionEdits#REMOVED}
+	 * @return the new table
+	 */
+	ExceptionTable with(Map<String, int[]> edits) {
+		ExceptionTable edited = new ExceptionTable(edits);
+		ExceptionTable table = new ExceptionTable(size() + edits.size());
+		for (int slot = 0; slot < keys.length; slot++) {
+			char[] key = keys[slot];
+			if (key != null && edited.findKey(key) < 0) {
+				table.put(key, values[slot], masks[slot]);
+			}
+		}
+		for (int slot = 0; slot < edited.keys.length; slot++) {
+			if (edited.keys[slot] != null && edited.values[slot] != ExceptionEdits.REMOVED) {
+				table.put(edited.keys[slot], edited.values[slot], edited.masks[slot]);
+			}
+		}
+		return table;
+	}
+
+	private void put(char[] key, int[] value, long valueMask) {
+		int slot = hash(key, 0, key.length, false) & mask;
+		while (keys[slot] != null) {
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = key;
+		values[slot] = value;
+		masks[slot] = valueMask;
+	}
+
+	/**
+	 * @return the slot of a key, which must be lowercase, or -1
+	 */
+	private int findKey(char[] key) {
+		for (int slot = hash(key, 0, key.length, false) & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+			if (Arrays.equals(keys[slot], key)) {
+				return slot;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return the number of exceptions
+	 */
+	int size() {
+		int size = 0;
+		for (char[] key : keys) {
+			if (key != null) {
+				size++;
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Looks up the lowercase form of a word.
+	 *
+	 * @param chars characters containing the word
+	 * @param offset the start of the word
+	 * @param length the length of the word
+	 * @return the hyphenation of the word, or null if it is not an exception
+	 */
+	int[] get(char[] chars, int offset, int length) {
+		int slot = find(chars, offset, length);
+		return slot < 0 ? null : values[slot];
+	}
+
+	/**
+	 * Looks up the lowercase form of a word.
+	 *
+	 * @param chars characters containing the word
+	 * @param offset the start of the word
+	 * @param length the length of the word
+	 * @return the slot of the word, or -1 if it is not an exception
+	 */
+	int find(char[] chars, int offset, int length) {
+		for (int slot = hash(chars, offset, length, true) & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+			if (equalsLowerCase(keys[slot], chars, offset, length)) {
+				return slot;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @param slot the slot of a word, from {@link #find(char[], int, int)}
+	 * @return the hyphenation of the word as a mask, with bit i set for a
+	 *         hyphen before character i. Only hyphens in the first 64
+	 *         characters are included.
+	 */
+	long getMask(int slot) {
+		return masks[slot];
+	}
+
+	private static long toMask(int[] hyphenation) {
+		long mask = 0;
+		for (int i = 0; i < Math.min(hyphenation.length, Long.SIZE - 1); i++) {
+			if (hyphenation[i] % 2 == 1) {
+				mask |= 1L << (i + 1);
+			}
+		}
+		return mask;
+	}
+
+	private static int hash(char[] chars, int offset, int length, boolean toLowerCase) {
+		int h = 0;
+		for (int i = offset; i < offset + length; i++) {
+			h = 31 * h + (toLowerCase ? CharTable.toLowerCase(chars[i]) : chars[i]);
+		}
+		return h ^ (h >>> 16);
+	}
+
+	private static boolean equalsLowerCase(char[] key, char[] chars, int offset, int length) {
+		if (key.length != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (key[i] != CharTable.toLowerCase(chars[offset + i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks whether lowercasing a word one character at a time gives the
+	 * same as {@link String#toLowerCase()}. It does not for surrogate pairs,
+	 * a capital I with a dot, a capital sigma (which depends on the next
+	 * character), or in Turkish, Azerbaijani and Lithuanian, where
+	 * lowercasing depends on the locale.
+	 *
+	 * @param chars characters containing the word
+	 * @param offset the start of the word
+	 * @param length the length of the word
+	 * @return true if {@link #get(char[], int, int)} finds the same as a map
+	 *         keyed by the lowercase string
+	 */
+	static boolean isLowerCasedPerChar(char[] chars, int offset, int length) {
+		String language = Locale.getDefault().getLanguage();
+		if (language.equals("tr") || language.equals("az") || language.equals("lt")) {
+			return false;
+		}
+		for (int i = offset; i < offset + length; i++) {
+			char c = chars[i];
+			if (c == '\u0130' || c == '\u03a3' || Character.isSurrogate(c)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the estimated heap used by the table, in bytes. The values
+	 *         belong to the rule set.
+	 */
+	long estimateBytes() {
+		long bytes = HeapEstimate.object(3, 4) + 2 * HeapEstimate.array(HeapEstimate.REFERENCE, keys.length)
+				+ HeapEstimate.array(8, masks.length);
+		for (char[] key : keys) {
+			if (key != null) {
+				bytes += HeapEstimate.array(2, key.length);
+			}
+		}
+		return bytes;
+	}
+}
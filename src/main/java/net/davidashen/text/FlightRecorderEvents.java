@@ -0,0 +1,59 @@
+package net.davidashen.text;
+
+/**
+ * Emits Java Flight Recorder events. JFR is not available on Java 8, so
+ * this version does nothing. The multi-release jar contains a version for
+ * Java 11 and later, in src/main/java11, which emits the events while a
+ * recording is running.
+ *
+ * <p>Events are created by a begin method, which returns null if the
+ * event is not recorded, and passed to the matching end method.</p>
+ */
+final class FlightRecorderEvents {
+
+	private FlightRecorderEvents() { }
+
+	/**
+	 * @return true if any events may be recorded
+	 */
+	static boolean isRecording() {
+		return false;
+	}
+
+	static Object beginTableLoad() {
+		return null;
+	}
+
+	/**
+	 * @param event the event from {@link #beginTableLoad()}
+	 * @param source the file name or other description of the table, or null
+	 * @param format the format of the table
+	 * @param rules the loaded rule set
+	 */
+	static void endTableLoad(Object event, String source, String format, RuleDefinition rules) {
+	}
+
+	static Object beginRuleCompile() {
+		return null;
+	}
+
+	/**
+	 * @param event the event from {@link #beginRuleCompile()}
+	 * @param structure the structure built, e.g. "lists"
+	 * @param size the number of subtrees, states or exceptions in the structure
+	 */
+	static void endRuleCompile(Object event, String structure, int size) {
+	}
+
+	static Object beginHyphenate() {
+		return null;
+	}
+
+	/**
+	 * @param event the event from {@link #beginHyphenate()}
+	 * @param length the length of the phrase
+	 * @param words the number of words in the phrase
+	 */
+	static void endHyphenate(Object event, int length, int words) {
+	}
+}
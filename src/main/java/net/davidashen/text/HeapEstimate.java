@@ -0,0 +1,30 @@
+package net.davidashen.text;
+
+/**
+ * Rough object sizes on a 64 bit JVM with compressed references, the default
+ * for heaps below 32 GB. Strings are counted with two bytes per character.
+ */
+final class HeapEstimate {
+	static final int OBJECT_HEADER = 12;
+	static final int REFERENCE = 4;
+	static final int ARRAY_HEADER = 16;
+
+	private HeapEstimate() { }
+
+	static long align(long bytes) {
+		return (bytes + 7) & ~7L;
+	}
+
+	static long array(int elementSize, int length) {
+		return align(ARRAY_HEADER + (long) elementSize * length);
+	}
+
+	static long string(String s) {
+		// value, hash
+		return align(OBJECT_HEADER + REFERENCE + 4) + array(2, s.length());
+	}
+
+	static long object(int references, int primitiveBytes) {
+		return align(OBJECT_HEADER + references * REFERENCE + primitiveBytes);
+	}
+}
@@ -0,0 +1,295 @@
+package net.davidashen.text;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import net.davidashen.util.ErrorHandler;
+
+/**
+ * <p>Serves hyphenation requests on a loopback TCP socket, so that other
+ * programs can use a table that is loaded once.</p>
+ *
+ * <p>Requests and responses are frames of a four byte big endian length
+ * followed by that many bytes of UTF-8 text. Each request is hyphenated like
+ * {@link Hyphenator#hyphenate(String, int, int)} and answered with one
+ * response. A client may send any number of requests without waiting for
+ * the responses; they are handled by a pool of workers shared by all
+ * connections, and answered in the order of the requests. A request longer
+ * than {@link #MAX_REQUEST_BYTES} closes the connection.</p>
+ *
+ * <p>Memory is bounded by the number of connections and the requests each
+ * may have in progress. Once a connection has {@link #MAX_PENDING_BYTES} of
+ * requests whose responses are not yet written, e.g. because the client does
+ * not read them, the server stops reading from it until some are. Clients
+ * beyond the maximum number of connections wait to be accepted.</p>
+ */
+final class HyphenationServer implements Closeable {
+	static final int MAX_REQUEST_BYTES = 1 << 20;
+	// Bytes of requests a connection may have in progress before the server stops reading from it
+	static final int MAX_PENDING_BYTES = 1 << 22;
+	// Counted for each request in addition to its bytes, for the objects that hold it
+	private static final int REQUEST_OVERHEAD = 256;
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	// Marks the end of the requests of a connection
+	private static final Pending END = new Pending(null, 0);
+	private final Hyphenator hyphenator;
+	private final int leftHyphenMin;
+	private final int rightHyphenMin;
+	private final ExecutorService workers;
+	private final Semaphore connections;
+	private ServerSocket serverSocket;
+
+	/**
+	 * @param hyphenator the hyphenator
+	 * @param leftHyphenMin unbreakable characters at the beginning of each word
+	 * @param rightHyphenMin unbreakable characters at the end of each word
+	 * @param threads the number of worker threads
+	 * @param maxConnections the number of connections served at a time
+	 */
+	HyphenationServer(Hyphenator hyphenator, int leftHyphenMin, int rightHyphenMin, int threads, int maxConnections) {
+		this.hyphenator = hyphenator;
+		this.leftHyphenMin = leftHyphenMin;
+		this.rightHyphenMin = rightHyphenMin;
+		this.workers = Executors.newFixedThreadPool(threads, daemonThreads("HyphenationServer worker"));
+		this.connections = new Semaphore(maxConnections);
+	}
+
+	/**
+	 * Starts accepting connections on the loopback address.
+	 *
+	 * @param port the port, or 0 for any free port
+	 * @return the port
+	 * @throws IOException if the socket cannot be opened
+	 */
+	synchronized int start(int port) throws IOException {
+		if (serverSocket != null) {
+			throw new IllegalStateException("Already started");
+		}
+		serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+		Thread acceptor = daemonThreads("HyphenationServer").newThread(new Acceptor(serverSocket));
+		acceptor.start();
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * Stops accepting connections and stops the workers. Requests that have
+	 * not started are cancelled, and connections in progress are closed
+	 * when they next need a worker.
+	 */
+	public synchronized void close() throws IOException {
+		for (Runnable queued : workers.shutdownNow()) {
+			// Wakes up the writer waiting for the response
+			((Future<?>) queued).cancel(false);
+		}
+		if (serverSocket != null) {
+			serverSocket.close();
+		}
+	}
+
+	private ErrorHandler getErrorHandler() {
+		return hyphenator.getErrorHandler();
+	}
+
+	private static ThreadFactory daemonThreads(final String name) {
+		return new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, name);
+				thread.setDaemon(true);
+				return thread;
+			}
+		};
+	}
+
+	private class Acceptor implements Runnable {
+		private final ServerSocket serverSocket;
+
+		Acceptor(ServerSocket serverSocket) {
+			this.serverSocket = serverSocket;
+		}
+
+		public void run() {
+			ThreadFactory threads = daemonThreads("HyphenationServer connection");
+			try {
+				for (;;) {
+					// Further clients wait in the backlog until a connection ends
+					while (!connections.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+						if (serverSocket.isClosed()) {
+							return;
+						}
+					}
+					Socket socket;
+					try {
+						socket = serverSocket.accept();
+					} catch (IOException e) {
+						connections.release();
+						throw e;
+					}
+					socket.setTcpNoDelay(true);
+					Connection connection = new Connection(socket);
+					threads.newThread(connection.reader()).start();
+					threads.newThread(connection.writer()).start();
+				}
+			} catch (IOException e) {
+				if (!serverSocket.isClosed()) {
+					getErrorHandler().exception("Hyphenation server stopped", e);
+				}
+			} catch (InterruptedException e) {
+				// stop accepting
+			}
+		}
+	}
+
+	/**
+	 * A request in progress, and what it counts towards
+	 * {@link HyphenationServer#MAX_PENDING_BYTES}.
+	 */
+	private static class Pending {
+		final Future<String> response;
+		final int bytes;
+
+		Pending(Future<String> response, int bytes) {
+			this.response = response;
+			this.bytes = bytes;
+		}
+	}
+
+	/**
+	 * One thread reads the requests of a connection and hands them to the
+	 * workers, another writes the responses in order.
+	 */
+	private class Connection {
+		private final Socket socket;
+		private final BlockingQueue<Pending> pending = new LinkedBlockingQueue<Pending>();
+		private final Semaphore pendingBytes = new Semaphore(MAX_PENDING_BYTES);
+
+		Connection(Socket socket) {
+			this.socket = socket;
+		}
+
+		Runnable reader() {
+			return new Runnable() {
+				public void run() {
+					try {
+						DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+						for (;;) {
+							int length;
+							try {
+								length = in.readInt();
+							} catch (EOFException e) {
+								break;
+							}
+							if (length < 0 || length > MAX_REQUEST_BYTES) {
+								getErrorHandler().error("Hyphenation request of " + length + " bytes, closing connection");
+								socket.close();
+								break;
+							}
+							int bytes = Math.min(length + REQUEST_OVERHEAD, MAX_PENDING_BYTES);
+							if (!reserve(bytes)) {
+								break;
+							}
+							byte[] request = new byte[length];
+							in.readFully(request);
+							pending.add(new Pending(workers.submit(hyphenate(new String(request, UTF8))), bytes));
+						}
+					} catch (IOException e) {
+						// connection closed
+					} catch (InterruptedException e) {
+						// stop reading
+					} catch (RuntimeException e) {
+						// workers shut down
+						close();
+					} finally {
+						pending.add(END);
+					}
+				}
+			};
+		}
+
+		Runnable writer() {
+			return new Runnable() {
+				public void run() {
+					try {
+						DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+						for (;;) {
+							Pending next = pending.poll();
+							if (next == null) {
+								// no more responses ready, send what we have
+								out.flush();
+								next = pending.take();
+							}
+							if (next == END) {
+								break;
+							}
+							byte[] response = next.response.get().getBytes(UTF8);
+							out.writeInt(response.length);
+							out.write(response);
+							pendingBytes.release(next.bytes);
+						}
+						out.flush();
+					} catch (IOException e) {
+						// connection closed
+					} catch (InterruptedException e) {
+						// stop writing
+					} catch (ExecutionException e) {
+						getErrorHandler().exception("Hyphenation failed, closing connection", e);
+					} catch (CancellationException e) {
+						// server closed
+					} finally {
+						close();
+						connections.release();
+					}
+				}
+			};
+		}
+
+		/**
+		 * Waits until the responses written make room for a request, unless
+		 * the connection is closed. The writer closes the connection when it
+		 * stops.
+		 */
+		private boolean reserve(int bytes) throws InterruptedException {
+			while (!pendingBytes.tryAcquire(bytes, 100, TimeUnit.MILLISECONDS)) {
+				if (socket.isClosed()) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private Callable<String> hyphenate(final String request) {
+			return new Callable<String>() {
+				public String call() {
+					return hyphenator.hyphenate(request, leftHyphenMin, rightHyphenMin);
+				}
+			};
+		}
+
+		private void close() {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				// already closed
+			}
+		}
+	}
+}
@@ -5,6 +5,9 @@ package net.davidashen.text;
 import java.io.Reader;
 import java.util.logging.Logger;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
+
 import net.davidashen.text.Utf8TexParser.TexParserException;
 import net.davidashen.util.*;
 
@@ -19,10 +22,29 @@ public class Hyphenator {
     public static final char SOFT_HYPHEN = '\u00ad';
     public static final char NON_BREAKING_HYPHEN = '\u2011';
 	private static final char ZERO_WIDTH_SPACE = '\u200b';
+	private static final int WORD_COUNT = 0;
+	private static final int EXCEPTION_COUNT = 1;
+	// followed by the number of words skipped for each WordLimits.SkipReason
+	private static final int SKIPPED_COUNT = 2;
+	private static final WordLimits.SkipReason[] SKIP_REASONS = WordLimits.SkipReason.values();
+	// Arrays reused by hyphenateWord on each thread
+	private static final ThreadLocal<WordBuffers> WORD_BUFFERS = new ThreadLocal<WordBuffers>() {
+		@Override
+		protected WordBuffers initialValue() {
+			return new WordBuffers(32);
+		}
+	};
+	// Table formats, as reported to the flight recorder
+	static final String TEXT_FORMAT = "text";
+	static final String BYTE_FORMAT = "one byte codes";
 	
 	private final ForwardingErrorHandler errorHandler;
-	private RuleDefinition ruleSet;
-	private final ByteScanner b;
+	private volatile RuleDefinition ruleSet;
+	private final RuleSetMerger tables;
+	private volatile MetricsListener metricsListener = MetricsListener.NONE;
+	private volatile WordLimits wordLimits = WordLimits.NONE;
+	private volatile LastLoad lastLoad = new LastLoad(null, -1, -1);
+	private RuleSetMonitor monitor;
 
 	/**
 	 * creates an uninitialized instance of Hyphenator. The same instance can be
@@ -30,21 +52,205 @@ public class Hyphenator {
 	 */
 	public Hyphenator() {
 		errorHandler = new ForwardingErrorHandler(new LoggingErrorHandler(Logger.getLogger(this.getClass().getCanonicalName())));
-		b = new ByteScanner(errorHandler);
+		tables = new RuleSetMerger(errorHandler);
 	}
 
 	public RuleDefinition getRuleSet() {
 		return ruleSet;
 	}
 
-	public void setRuleSet(RuleDefinition scanner) {
+	/**
+	 * Replaces the rule set. Calls to hyphenate in progress complete with the
+	 * previous rule set.
+	 * 
+	 * @param scanner the new rule set
+	 * @see TableWatcher
+	 */
+	public synchronized void setRuleSet(RuleDefinition scanner) {
 		this.ruleSet = scanner;
 	}
 
+	/**
+	 * <p>Adds patterns to the current rule set. A pattern that matches the same
+	 * letters as an existing pattern replaces it.</p>
+	 * 
+	 * <p>The rule set is not modified. Instead, a new rule set sharing all
+	 * unchanged rules with the current one is created and replaces it
+	 * atomically, so that calls to hyphenate in progress are not affected.
+	 * Changed patterns are copied in time proportional to the size of the
+	 * change, but the transition table used for hyphenation is recompiled,
+	 * in time proportional to the number of patterns. Adding or removing
+	 * exceptions copies the exception table, in time proportional to the
+	 * number of exceptions. Both are done by the calling thread, not by the
+	 * next call to hyphenate. Updates made with this method are lost when a
+	 * table is loaded.</p>
+	 * 
+	 * @param patterns the patterns, e.g. "a1b"
+	 * @throws IllegalStateException if the rule set was not created by
+	 *             one of the loadTable methods
+	 */
+	public synchronized void addPatterns(String... patterns) {
+		ruleSet = getUpdatableRuleSet().withPatterns(patterns);
+	}
+
+	/**
+	 * Removes patterns from the current rule set, see {@link #addPatterns(String...)}.
+	 * Digits in the patterns are ignored.
+	 * 
+	 * @param patterns the patterns, e.g. "a1b" or "ab"
+	 * @throws IllegalStateException if the rule set was not created by
+	 *             one of the loadTable methods
+	 */
+	public synchronized void removePatterns(String... patterns) {
+		ruleSet = getUpdatableRuleSet().withoutPatterns(patterns);
+	}
+
+	/**
+	 * Adds exceptions to the current rule set, see {@link #addPatterns(String...)}.
+	 * An exception for a word that already has one replaces it.
+	 * 
+	 * @param words the words, with hyphens at the allowed positions, e.g. "as-so-ciate"
+	 * @throws IllegalStateException if the rule set was not created by
+	 *             one of the loadTable methods
+	 */
+	public synchronized void addExceptions(String... words) {
+		ruleSet = getUpdatableRuleSet().withExceptions(words);
+	}
+
+	/**
+	 * Removes exceptions from the current rule set, see {@link #addPatterns(String...)}.
+	 * 
+	 * @param words the words, with or without hyphens
+	 * @throws IllegalStateException if the rule set was not created by
+	 *             one of the loadTable methods
+	 */
+	public synchronized void removeExceptions(String... words) {
+		ruleSet = getUpdatableRuleSet().withoutExceptions(words);
+	}
+
+	private TreeNodeScanner getUpdatableRuleSet() {
+		RuleDefinition current = ruleSet;
+		if (current == null) {
+			return new TreeNodeScanner(TreeNode.createRoot(), new java.util.HashMap<String, int[]>());
+		} else if (current instanceof TreeNodeScanner) {
+			return (TreeNodeScanner) current;
+		} else {
+			throw new IllegalStateException("The rule set does not support updates: " + current.getClass().getName());
+		}
+	}
+
 	public ErrorHandler getErrorHandler() {
 		return errorHandler.getTarget();
 	}
 
+	public MetricsListener getMetricsListener() {
+		return metricsListener;
+	}
+
+	/**
+	 * Installs a listener for counts and timings of hyphenation and table
+	 * loading. Nothing is counted or timed while the listener is
+	 * {@link MetricsListener#NONE}, the default. Only calls to
+	 * {@link #hyphenate(String, int, int)} are counted, not those to the
+	 * methods for single words, see {@link MetricsListener}.
+	 * 
+	 * @param listener the listener, or null to remove the current one
+	 * @see MetricsRecorder
+	 */
+	public void setMetricsListener(MetricsListener listener) {
+		metricsListener = listener == null ? MetricsListener.NONE : listener;
+	}
+
+	public WordLimits getWordLimits() {
+		return wordLimits;
+	}
+
+	/**
+	 * Sets limits on the words to hyphenate, for text that may contain long
+	 * tokens such as URLs or base64 data. Words outside the limits are left
+	 * unchanged. There are no limits by default.
+	 * 
+	 * @param limits the limits, or null to remove the current ones
+	 */
+	public void setWordLimits(WordLimits limits) {
+		wordLimits = limits == null ? WordLimits.NONE : limits;
+	}
+
+	/**
+	 * Builds the tables of a rule set that are otherwise built on first use,
+	 * so that they are ready before the rule set is published and calls to
+	 * hyphenate do not race to build them.
+	 * 
+	 * @param rules the rule set
+	 * @return the rule set
+	 */
+	static RuleDefinition compileTables(RuleDefinition rules) {
+		if (rules instanceof TreeNodeScanner) {
+			((TreeNodeScanner) rules).getCompiledPatterns();
+			((TreeNodeScanner) rules).getExceptionTable();
+		}
+		return rules;
+	}
+
+	/**
+	 * Reports a loaded rule set to the metrics listener and the flight recorder.
+	 * 
+	 * @param event the event from {@link FlightRecorderEvents#beginTableLoad()}
+	 * @param source the file name of the table, or null
+	 * @param format the format of the table
+	 * @param rules the rule set
+	 * @param start the value of System.nanoTime() before loading the rule set
+	 */
+	void reportTableLoaded(Object event, String source, String format, RuleDefinition rules, long start) {
+		FlightRecorderEvents.endTableLoad(event, source, format, rules);
+		long nanos = System.nanoTime() - start;
+		lastLoad = new LastLoad(source, nanos, System.currentTimeMillis());
+		final MetricsListener listener = metricsListener;
+		if (listener != MetricsListener.NONE && rules instanceof TreeNodeScanner) {
+			TreeNodeScanner scanner = (TreeNodeScanner) rules;
+			listener.tableLoaded(scanner.getPatternCount(), scanner.getExceptionCount(), nanos);
+		}
+	}
+
+	LastLoad getLastLoad() {
+		return lastLoad;
+	}
+
+	/**
+	 * Registers a {@link RuleSetMXBean} for this hyphenator with the platform
+	 * MBean server, as net.davidashen.text:type=RuleSet,name=<i>name</i>.
+	 * The MBean does not keep the hyphenator from being garbage collected.
+	 * A hyphenator that is replaced, e.g. by one with a reloaded table,
+	 * should be unregistered with {@link #unregisterMBean()}, but if it is
+	 * not, its name can be registered again once it has been collected.
+	 * 
+	 * @param name the name of the MBean, e.g. the language of the table
+	 * @return the object name of the MBean
+	 * @throws JMException if the MBean cannot be registered, e.g. because the
+	 *             name is used by another hyphenator
+	 * @throws IllegalStateException if the hyphenator is already registered
+	 */
+	public synchronized ObjectName registerMBean(String name) throws JMException {
+		if (monitor != null) {
+			throw new IllegalStateException("Already registered as " + monitor.getObjectName());
+		}
+		ObjectName newName = new ObjectName("net.davidashen.text:type=RuleSet,name=" + ObjectName.quote(name));
+		monitor = RuleSetMonitor.register(this, newName);
+		return newName;
+	}
+
+	/**
+	 * Unregisters the MBean registered with {@link #registerMBean(String)}, if any.
+	 * 
+	 * @throws JMException if the MBean cannot be unregistered
+	 */
+	public synchronized void unregisterMBean() throws JMException {
+		if (monitor != null) {
+			monitor.unregister();
+			monitor = null;
+		}
+	}
+
 	/**
 	 * installs error handler.
 	 * 
@@ -60,7 +266,8 @@ public class Hyphenator {
 	 * <p>Loads a hyphenation table with a reader. This enables the use of UTF-8 pattern files.
 	 * Note that escape codes in the original tex-files are not supported, e.g. ^^f6.
 	 * This method also differs in that multiple calls to loadTable are not joined, only the 
-	 * most recent pattern file is used.</p>
+	 * most recent pattern file is used. Use {@link RuleSetMerger} to combine several 
+	 * pattern files.</p>
 	 * 
 	 * <p>Only "\pattern{" and "\hyphenation{" groups are supported.</p>
 	 * 
@@ -68,8 +275,12 @@ public class Hyphenator {
 	 * @throws TexParserException if there are problems reading the input
 	 */
 	public void loadTable(Reader reader) throws TexParserException {
+		long start = System.nanoTime();
+		Object event = FlightRecorderEvents.beginTableLoad();
 		Utf8TexParser parser = new Utf8TexParser();
-		ruleSet = parser.parse(reader);
+		RuleDefinition rules = compileTables(parser.parse(reader));
+		setRuleSet(rules);
+		reportTableLoaded(event, null, TEXT_FORMAT, rules, start);
 	}
 	
 	/**
@@ -89,7 +300,10 @@ public class Hyphenator {
 	}
 
 	/**
-	 * loads hyphenation table and code list for non-ucs encoding
+	 * loads hyphenation table and code list for non-ucs encoding. The table is
+	 * joined with the tables of previous calls to this method, patterns and
+	 * exceptions replacing those of earlier tables. Use {@link RuleSetMerger}
+	 * to combine tables of different kinds.
 	 * 
 	 * @param in
 	 *            hyphenation table
@@ -97,10 +311,13 @@ public class Hyphenator {
 	 *            an array of 256 elements. maps one-byte codes to UTF codes
 	 * @throws java.io.IOException if an I/O error occurs
 	 */
-	public void loadTable(java.io.InputStream in, int[] codelist)
+	public synchronized void loadTable(java.io.InputStream in, int[] codelist)
 			throws java.io.IOException {
-		b.scan(in, codelist);
-		ruleSet = b;
+		long start = System.nanoTime();
+		Object event = FlightRecorderEvents.beginTableLoad();
+		RuleDefinition rules = compileTables(tables.add(in, codelist).merge());
+		ruleSet = rules;
+		reportTableLoaded(event, null, BYTE_FORMAT, rules, start);
 	}
 
 	/**
@@ -127,6 +344,31 @@ public class Hyphenator {
 	 * @return the string with soft hyphens inserted
 	 */
 	public String hyphenate(String phrase, int leftHyphenMin, int rightHyphenMin) {
+		final MetricsListener listener = metricsListener;
+		if (listener == MetricsListener.NONE && !FlightRecorderEvents.isRecording()) {
+			return hyphenate(phrase, leftHyphenMin, rightHyphenMin, null);
+		}
+		final Object event = FlightRecorderEvents.beginHyphenate();
+		final long start = System.nanoTime();
+		final int[] counts = new int[SKIPPED_COUNT + SKIP_REASONS.length];
+		String result = hyphenate(phrase, leftHyphenMin, rightHyphenMin, counts);
+		listener.hyphenated(counts[WORD_COUNT], counts[EXCEPTION_COUNT], System.nanoTime() - start);
+		for (int i = 0; i < SKIP_REASONS.length; i++) {
+			if (counts[SKIPPED_COUNT + i] > 0) {
+				listener.skipped(SKIP_REASONS[i], counts[SKIPPED_COUNT + i]);
+			}
+		}
+		FlightRecorderEvents.endHyphenate(event, phrase.length(), counts[WORD_COUNT]);
+		return result;
+	}
+
+	/**
+	 * @param counts receives the number of words and exceptions at
+	 *            {@link #WORD_COUNT} and {@link #EXCEPTION_COUNT}, and of
+	 *            skipped words from {@link #SKIPPED_COUNT}, or null if they
+	 *            are not needed
+	 */
+	private String hyphenate(String phrase, int leftHyphenMin, int rightHyphenMin, int[] counts) {
 
 		// Check input
 		leftHyphenMin = Math.max(leftHyphenMin, 1);
@@ -137,6 +379,11 @@ public class Hyphenator {
 			return phrase;
 		}
 
+		// The rule set may be replaced while hyphenating, use the same one throughout
+		final RuleDefinition rules = ruleSet;
+		final CompiledPatterns compiledPatterns = getCompiledPatterns(rules);
+		final WordLimits limits = wordLimits;
+		int budget = limits.getWorkBudget();
 		int processedOffset = Integer.MIN_VALUE; 
 		int ich = 0; 
 		char[] sourcePhraseChars = new char[phrase.length() + 1];
@@ -150,23 +397,41 @@ public class Hyphenator {
 		boolean inword = false;
 		while (true) {
 			if (inword) {
-				if (Character.isLetter(sourcePhraseChars[ich])) {
-					ich++;
+				if (CharTable.isLetter(sourcePhraseChars[ich])) {
+					ich = WordScanner.skipLetters(sourcePhraseChars, ich + 1);
 				} else { // last character will be reprocessed in the other
 							// state
 					int length = ich - processedOffset;
-					String word = new String(sourcePhraseChars, processedOffset, length).toLowerCase();
-					int[] hyphenQualificationPoints = ruleSet
-							.getException(word);
-
-					if (hyphenQualificationPoints == null) {
-						char[] wordChars = extractWord(sourcePhraseChars, processedOffset, length);
-						hyphenQualificationPoints = applyHyphenationRules(
-								wordChars, length);
+					int[] hyphenQualificationPoints = null;
+					WordLimits.SkipReason skipped = limits.check(sourcePhraseChars, processedOffset, length, budget);
+					if (skipped != null) {
+						if (counts != null) {
+							counts[SKIPPED_COUNT + skipped.ordinal()]++;
+						}
+					} else {
+						budget -= length;
+						String word = new String(sourcePhraseChars, processedOffset, length).toLowerCase();
+						hyphenQualificationPoints = rules.getException(word);
+
+						if (hyphenQualificationPoints == null) {
+							if (compiledPatterns != null) {
+								hyphenQualificationPoints = compiledPatterns.apply(
+										sourcePhraseChars, processedOffset, length, length);
+							} else {
+								char[] extractedWord = extractWord(sourcePhraseChars, processedOffset, length);
+								hyphenQualificationPoints = applyHyphenationRules(
+										rules, extractedWord, length, length);
+							}
+						} else if (counts != null) {
+							counts[EXCEPTION_COUNT]++;
+						}
+						if (counts != null) {
+							counts[WORD_COUNT]++;
+						}
 					}
 
 					// now inserting soft hyphens
-					if (leftHyphenMin + rightHyphenMin <= length) {
+					if (hyphenQualificationPoints != null && leftHyphenMin + rightHyphenMin <= length) {
 						for (int i = 0; i < leftHyphenMin - 1; i++){
 							hyphenatedPhraseChars[ihy++] = sourcePhraseChars[processedOffset++];
 						}
@@ -182,7 +447,7 @@ public class Hyphenator {
 							hyphenatedPhraseChars[ihy++] = sourcePhraseChars[processedOffset++];
 						}
 					} else {
-						//Word is to short to hyphenate, so just copy
+						//Word is to short to hyphenate, or skipped, so just copy
 						for (int i = 0; i != length; ++i){
 							hyphenatedPhraseChars[ihy++] = sourcePhraseChars[processedOffset++];
 						}
@@ -190,7 +455,12 @@ public class Hyphenator {
 					inword = false;
 				}
 			} else {
-				if (Character.isLetter(sourcePhraseChars[ich])) {
+				// copy the text up to the next letter, zero or hyphen
+				int next = WordScanner.skipNonLetters(sourcePhraseChars, ich);
+				System.arraycopy(sourcePhraseChars, ich, hyphenatedPhraseChars, ihy, next - ich);
+				ihy += next - ich;
+				ich = next;
+				if (CharTable.isLetter(sourcePhraseChars[ich])) {
 					processedOffset = ich;
 					inword = true; // processedOffset remembers the start of the word
 				} else {
@@ -207,6 +477,399 @@ public class Hyphenator {
 		return new String(hyphenatedPhraseChars, 0, ihy);
 	}
 
+	/**
+	 * Finds the last point before a column where a word can be hyphenated,
+	 * for a line breaker that only needs one point. The result is the same
+	 * as from {@link #hyphenate(String, int, int)}, but the patterns are
+	 * only applied to the start of the word that decides the points up to
+	 * <b>maxIndex</b>, and not at all if the word is an exception.
+	 * 
+	 * @param word
+	 *            the word, made of letters
+	 * @param maxIndex
+	 *            the largest index to break at, e.g. the number of
+	 *            characters that fit on the line before the hyphen
+	 * @param leftHyphenMin
+	 *            unbreakable characters at the beginning of the word
+	 * @param rightHyphenMin
+	 *            unbreakable characters at the end of the word
+	 * @return the index of the first character after the hyphen, or -1 if
+	 *         the word cannot be hyphenated at or before <b>maxIndex</b>
+	 */
+	public int lastBreakBefore(CharSequence word, int maxIndex, int leftHyphenMin, int rightHyphenMin) {
+		leftHyphenMin = Math.max(leftHyphenMin, 1);
+		rightHyphenMin = Math.max(rightHyphenMin, 1);
+		final int length = word.length();
+		final int last = Math.min(maxIndex, length - rightHyphenMin);
+		if (last < leftHyphenMin) {
+			return -1;
+		}
+		char[] chars = toChars(word);
+		final WordLimits limits = wordLimits;
+		if (limits.check(chars, 0, length, limits.getWorkBudget()) != null) {
+			return -1;
+		}
+
+		final RuleDefinition rules = ruleSet;
+		int[] hyphenQualificationPoints = rules.getException(new String(chars).toLowerCase());
+		if (hyphenQualificationPoints == null) {
+			// The point before index i is decided by patterns starting up to i + 1 in the
+			// word surrounded by '.'
+			hyphenQualificationPoints = applyPatterns(rules, chars, 0, length, Math.min(last + 2, length));
+		}
+		for (int i = last; i >= leftHyphenMin; i--) {
+			if (hyphenQualificationPoints[i - 1] % 2 == 1) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Finds whether a word can be hyphenated at all, i.e. whether
+	 * {@link #hyphenate(String, int, int)} would insert a hyphen. The patterns
+	 * are applied only until the first point that allows a hyphen.
+	 * 
+	 * @param word
+	 *            the word, made of letters
+	 * @param leftHyphenMin
+	 *            unbreakable characters at the beginning of the word
+	 * @param rightHyphenMin
+	 *            unbreakable characters at the end of the word
+	 * @return true if the word has a hyphenation point
+	 */
+	public boolean canHyphenate(CharSequence word, int leftHyphenMin, int rightHyphenMin) {
+		leftHyphenMin = Math.max(leftHyphenMin, 1);
+		rightHyphenMin = Math.max(rightHyphenMin, 1);
+		final int length = word.length();
+		// the range of points, point i is after character i
+		final int first = leftHyphenMin - 1;
+		final int last = length - rightHyphenMin - 1;
+		if (last < first) {
+			return false;
+		}
+		char[] chars = toChars(word);
+		final WordLimits limits = wordLimits;
+		if (limits.check(chars, 0, length, limits.getWorkBudget()) != null) {
+			return false;
+		}
+
+		final RuleDefinition rules = ruleSet;
+		int[] hyphenQualificationPoints = rules.getException(new String(chars).toLowerCase());
+		if (hyphenQualificationPoints == null) {
+			CompiledPatterns compiledPatterns = getCompiledPatterns(rules);
+			if (compiledPatterns != null) {
+				return compiledPatterns.hasOddPoint(chars, 0, length, first, last);
+			}
+			hyphenQualificationPoints = applyHyphenationRules(rules, extractWord(chars, 0, length),
+					length, Math.min(last + 3, length));
+		}
+		return countOddPoints(hyphenQualificationPoints, first, last) > 0;
+	}
+
+	/**
+	 * Counts the points where a word can be hyphenated, i.e. the number of
+	 * hyphens {@link #hyphenate(String, int, int)} would insert.
+	 * 
+	 * @param word
+	 *            the word, made of letters
+	 * @param leftHyphenMin
+	 *            unbreakable characters at the beginning of the word
+	 * @param rightHyphenMin
+	 *            unbreakable characters at the end of the word
+	 * @return the number of hyphenation points
+	 */
+	public int countHyphenationPoints(CharSequence word, int leftHyphenMin, int rightHyphenMin) {
+		leftHyphenMin = Math.max(leftHyphenMin, 1);
+		rightHyphenMin = Math.max(rightHyphenMin, 1);
+		final int length = word.length();
+		final int first = leftHyphenMin - 1;
+		final int last = length - rightHyphenMin - 1;
+		if (last < first) {
+			return 0;
+		}
+		char[] chars = toChars(word);
+		final WordLimits limits = wordLimits;
+		if (limits.check(chars, 0, length, limits.getWorkBudget()) != null) {
+			return 0;
+		}
+
+		final RuleDefinition rules = ruleSet;
+		int[] hyphenQualificationPoints = rules.getException(new String(chars).toLowerCase());
+		if (hyphenQualificationPoints == null) {
+			hyphenQualificationPoints = applyPatterns(rules, chars, 0, length, Math.min(last + 3, length));
+		}
+		return countOddPoints(hyphenQualificationPoints, first, last);
+	}
+
+	private static int countOddPoints(int[] hyphenQualificationPoints, int first, int last) {
+		int count = 0;
+		for (int i = first; i <= last; i++) {
+			count += hyphenQualificationPoints[i] % 2;
+		}
+		return count;
+	}
+
+	/**
+	 * Hyphenates a word in a slice of a char array, for callers that have
+	 * already split their text into words. The slice is read in place and
+	 * taken as one word, whatever its characters. The breaks are where
+	 * {@link #hyphenate(String, int, int)} would insert hyphens into the
+	 * word.
+	 * 
+	 * <p>With a rule set loaded by this library, a word up to
+	 * {@value WordBuffers#MAX_KEPT_LENGTH} characters is hyphenated without
+	 * allocating anything after the first calls on a thread, unless its
+	 * lowercase form depends on more than each character.</p>
+	 * 
+	 * @param chars
+	 *            characters containing the word
+	 * @param offset
+	 *            the start of the word
+	 * @param length
+	 *            the length of the word
+	 * @param leftHyphenMin
+	 *            unbreakable characters at the beginning of the word
+	 * @param rightHyphenMin
+	 *            unbreakable characters at the end of the word
+	 * @param breaks
+	 *            receives the index in the word of the first character
+	 *            after each hyphen, in increasing order. Must have room for
+	 *            all of them, at most <b>length</b> - 1.
+	 * @return the number of breaks
+	 */
+	public int hyphenateWord(char[] chars, int offset, int length, int leftHyphenMin, int rightHyphenMin, int[] breaks) {
+		leftHyphenMin = Math.max(leftHyphenMin, 1);
+		rightHyphenMin = Math.max(rightHyphenMin, 1);
+		final int first = leftHyphenMin - 1;
+		final int last = length - rightHyphenMin - 1;
+		if (last < first) {
+			return 0;
+		}
+		final WordLimits limits = wordLimits;
+		if (limits.check(chars, offset, length, limits.getWorkBudget()) != null) {
+			return 0;
+		}
+
+		final RuleDefinition rules = ruleSet;
+		final int starts = Math.min(last + 3, length);
+		if (rules instanceof TreeNodeScanner && ExceptionTable.isLowerCasedPerChar(chars, offset, length)) {
+			TreeNodeScanner scanner = (TreeNodeScanner) rules;
+			int[] hyphenation = scanner.getExceptionTable().get(chars, offset, length);
+			if (hyphenation != null) {
+				return writeBreaks(hyphenation, 0, first, last, breaks);
+			}
+			CompiledPatterns compiledPatterns = scanner.getCompiledPatterns();
+			if (compiledPatterns != null) {
+				WordBuffers buffers = WORD_BUFFERS.get().forLength(length);
+				compiledPatterns.apply(chars, offset, length, starts, buffers.word, buffers.points);
+				// the point after character i is at i + 2
+				return writeBreaks(buffers.points, 2, first, last, breaks);
+			}
+		}
+		int[] hyphenQualificationPoints = rules.getException(new String(chars, offset, length).toLowerCase());
+		if (hyphenQualificationPoints == null) {
+			hyphenQualificationPoints = applyPatterns(rules, chars, offset, length, starts);
+		}
+		return writeBreaks(hyphenQualificationPoints, 0, first, last, breaks);
+	}
+
+	/**
+	 * Hyphenates a word of up to 64 characters into a mask, see
+	 * {@link #hyphenationMask(char[], int, int, int, int)}.
+	 * 
+	 * @param word
+	 *            the word
+	 * @param leftHyphenMin
+	 *            unbreakable characters at the beginning of the word
+	 * @param rightHyphenMin
+	 *            unbreakable characters at the end of the word
+	 * @return the mask, with bit i set for a hyphen before character i
+	 * @throws IllegalArgumentException
+	 *             if the word is longer than 64 characters
+	 */
+	public long hyphenationMask(CharSequence word, int leftHyphenMin, int rightHyphenMin) {
+		return hyphenationMask(toChars(word), 0, word.length(), leftHyphenMin, rightHyphenMin);
+	}
+
+	/**
+	 * Hyphenates a word of up to 64 characters in a slice of a char array
+	 * into a mask, with bit i set if {@link #hyphenate(String, int, int)}
+	 * would insert a hyphen before character i. Masks are compared and
+	 * stored without allocating, and two words are hyphenated alike if
+	 * their masks are equal. The word is found as in
+	 * {@link #hyphenateWord(char[], int, int, int, int, int[])}.
+	 * 
+	 * @param chars
+	 *            characters containing the word
+	 * @param offset
+	 *            the start of the word
+	 * @param length
+	 *            the length of the word, at most 64
+	 * @param leftHyphenMin
+	 *            unbreakable characters at the beginning of the word
+	 * @param rightHyphenMin
+	 *            unbreakable characters at the end of the word
+	 * @return the mask, with bit i set for a hyphen before character i
+	 * @throws IllegalArgumentException
+	 *             if the word is longer than 64 characters
+	 */
+	public long hyphenationMask(char[] chars, int offset, int length, int leftHyphenMin, int rightHyphenMin) {
+		if (length > Long.SIZE) {
+			throw new IllegalArgumentException("Word longer than " + Long.SIZE + " characters: " + length);
+		}
+		leftHyphenMin = Math.max(leftHyphenMin, 1);
+		rightHyphenMin = Math.max(rightHyphenMin, 1);
+		final int first = leftHyphenMin - 1;
+		final int last = length - rightHyphenMin - 1;
+		if (last < first) {
+			return 0;
+		}
+		final WordLimits limits = wordLimits;
+		if (limits.check(chars, offset, length, limits.getWorkBudget()) != null) {
+			return 0;
+		}
+
+		final RuleDefinition rules = ruleSet;
+		final int starts = Math.min(last + 3, length);
+		if (rules instanceof TreeNodeScanner && ExceptionTable.isLowerCasedPerChar(chars, offset, length)) {
+			TreeNodeScanner scanner = (TreeNodeScanner) rules;
+			ExceptionTable exceptions = scanner.getExceptionTable();
+			int slot = exceptions.find(chars, offset, length);
+			if (slot >= 0) {
+				// breaks first + 1 to last + 1
+				return exceptions.getMask(slot) & (-1L << (first + 1)) & (-1L >>> (Long.SIZE - 2 - last));
+			}
+			CompiledPatterns compiledPatterns = scanner.getCompiledPatterns();
+			if (compiledPatterns != null) {
+				WordBuffers buffers = WORD_BUFFERS.get().forLength(length);
+				compiledPatterns.apply(chars, offset, length, starts, buffers.word, buffers.points);
+				return toMask(buffers.points, 2, first, last);
+			}
+		}
+		int[] hyphenQualificationPoints = rules.getException(new String(chars, offset, length).toLowerCase());
+		if (hyphenQualificationPoints == null) {
+			hyphenQualificationPoints = applyPatterns(rules, chars, offset, length, starts);
+		}
+		return toMask(hyphenQualificationPoints, 0, first, last);
+	}
+
+	private static long toMask(int[] hyphenQualificationPoints, int shift, int first, int last) {
+		long mask = 0;
+		for (int i = first; i <= last; i++) {
+			if (hyphenQualificationPoints[i + shift] % 2 == 1) {
+				mask |= 1L << (i + 1);
+			}
+		}
+		return mask;
+	}
+
+	private static int writeBreaks(int[] hyphenQualificationPoints, int shift, int first, int last, int[] breaks) {
+		int count = 0;
+		for (int i = first; i <= last; i++) {
+			if (hyphenQualificationPoints[i + shift] % 2 == 1) {
+				breaks[count++] = i + 1;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Gets the levels of the points between the letters of a word, as
+	 * decided by the patterns, for a line breaker that ranks the points. A
+	 * point with an odd level can be hyphenated, and higher levels come
+	 * from more specific patterns. Words in the exceptions have level 1 at
+	 * their hyphens and 0 elsewhere. The hyphen minimums and word limits are
+	 * not applied.
+	 * 
+	 * @param word
+	 *            the word, made of letters
+	 * @param levels
+	 *            receives the level of the point after character i of the
+	 *            word at index <b>offset</b> + i
+	 * @param offset
+	 *            the index in <b>levels</b> of the first point
+	 * @return the number of points, one less than the length of the word
+	 * @throws IndexOutOfBoundsException
+	 *             if the points do not fit into <b>levels</b>
+	 */
+	public int getHyphenationLevels(CharSequence word, int[] levels, int offset) {
+		int count = Math.max(word.length() - 1, 0);
+		checkBounds(levels.length, offset, count);
+		System.arraycopy(getLevels(word), 0, levels, offset, count);
+		return count;
+	}
+
+	/**
+	 * Gets the levels of the points between the letters of a word, see
+	 * {@link #getHyphenationLevels(CharSequence, int[], int)}.
+	 * 
+	 * @param word
+	 *            the word, made of letters
+	 * @param levels
+	 *            receives the level of the point after character i of the
+	 *            word at index <b>offset</b> + i
+	 * @param offset
+	 *            the index in <b>levels</b> of the first point
+	 * @return the number of points, one less than the length of the word
+	 * @throws IndexOutOfBoundsException
+	 *             if the points do not fit into <b>levels</b>
+	 */
+	public int getHyphenationLevels(CharSequence word, byte[] levels, int offset) {
+		int count = Math.max(word.length() - 1, 0);
+		checkBounds(levels.length, offset, count);
+		int[] wordLevels = getLevels(word);
+		for (int i = 0; i < count; i++) {
+			levels[offset + i] = (byte) wordLevels[i];
+		}
+		return count;
+	}
+
+	private static void checkBounds(int arrayLength, int offset, int count) {
+		if (offset < 0 || offset > arrayLength - count) {
+			throw new IndexOutOfBoundsException("Cannot write " + count + " levels at " + offset
+					+ " into an array of " + arrayLength);
+		}
+	}
+
+	/**
+	 * @return the hyphen qualification points of a word, from the exceptions
+	 *         or the patterns
+	 */
+	private int[] getLevels(CharSequence word) {
+		final RuleDefinition rules = ruleSet;
+		char[] chars = toChars(word);
+		int[] hyphenQualificationPoints = rules.getException(new String(chars).toLowerCase());
+		if (hyphenQualificationPoints == null) {
+			hyphenQualificationPoints = applyPatterns(rules, chars, 0, chars.length, chars.length);
+		}
+		return hyphenQualificationPoints;
+	}
+
+	private static char[] toChars(CharSequence word) {
+		char[] chars = new char[word.length()];
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = word.charAt(i);
+		}
+		return chars;
+	}
+
+	/**
+	 * Applies the patterns of a rule set to a word, with the compiled
+	 * patterns if there are any.
+	 */
+	private int[] applyPatterns(RuleDefinition rules, char[] chars, int offset, int length, int starts) {
+		CompiledPatterns compiledPatterns = getCompiledPatterns(rules);
+		if (compiledPatterns != null) {
+			return compiledPatterns.apply(chars, offset, length, starts);
+		}
+		return applyHyphenationRules(rules, extractWord(chars, offset, length), length, starts);
+	}
+
+	private static CompiledPatterns getCompiledPatterns(RuleDefinition rules) {
+		return rules instanceof TreeNodeScanner ? ((TreeNodeScanner) rules).getCompiledPatterns() : null;
+	}
+
 	/**
 	 * Extract a word from a char array. The word is converted to lower case and
 	 * a '.' character is appended to the beginning and end of the new array.
@@ -224,25 +887,31 @@ public class Hyphenator {
 		char[] echars = new char[wordLength + 2];
 		echars[0] = echars[echars.length - 1] = '.';
 		for (int i = 0; i < wordLength; i++) {
-			echars[1 + i] = Character.toLowerCase(chars[wordStart + i]);
+			echars[1 + i] = CharTable.toLowerCase(chars[wordStart + i]);
 		}
 		return echars;
 	}
-	
+
 	/**
 	 * Generate a hyphen qualification points for a word by applying rules.
 	 * 
+	 * @param ruleSet
+	 *            The rules to apply
 	 * @param wordChars
 	 *            Word surrounded by '.' characters
 	 * @param length
 	 *            Length of the word (excluding '.' characters)
+	 * @param starts
+	 *            Number of positions in <b>wordChars</b> where rules are
+	 *            applied, at most <b>length</b>. Points after
+	 *            <b>starts</b> - 2 in the word are incomplete if less.
 	 * @return hyphen qualification points for the word
 	 */
 	@SuppressWarnings("rawtypes")
-	private int[] applyHyphenationRules(final char[] wordChars, final int length) {
+	private int[] applyHyphenationRules(final RuleDefinition ruleSet, final char[] wordChars, final int length, final int starts) {
 		int[] hyphenQualificationPoints = new int[wordChars.length + 1];
 
-		for (int istart = 0; istart < length; istart++) {
+		for (int istart = 0; istart < starts; istart++) {
 			List rules = ruleSet.getPatternTree((int) wordChars[istart]);
 			int i = istart;
 
@@ -279,6 +948,50 @@ public class Hyphenator {
 		return hyphenQualificationPoints;
 	}
 
+	/**
+	 * Arrays for applying the compiled patterns to a word.
+	 */
+	static final class WordBuffers {
+		// Longer words get arrays that are not kept, so that one long word does not hold memory
+		static final int MAX_KEPT_LENGTH = 256;
+		char[] word;
+		int[] points;
+
+		WordBuffers(int length) {
+			word = new char[length + 2];
+			points = new int[length + 3];
+		}
+
+		/**
+		 * @return these buffers, grown if needed, or new buffers for a word
+		 *         longer than {@link #MAX_KEPT_LENGTH}
+		 */
+		WordBuffers forLength(int length) {
+			if (length > MAX_KEPT_LENGTH) {
+				return new WordBuffers(length);
+			} else if (word.length < length + 2) {
+				word = new char[length + 2];
+				points = new int[length + 3];
+			}
+			return this;
+		}
+	}
+
+	/**
+	 * When and how the last table was loaded.
+	 */
+	static final class LastLoad {
+		final String source;
+		final long nanos;
+		final long loadedAt;
+
+		LastLoad(String source, long nanos, long loadedAt) {
+			this.source = source;
+			this.nanos = nanos;
+			this.loadedAt = loadedAt;
+		}
+	}
+
 	private class ForwardingErrorHandler implements ErrorHandler {
 		private ErrorHandler target;
 		
@@ -313,6 +1026,22 @@ public class Hyphenator {
 		public void exception(String s, Exception e) {
 			target.exception(s, e);
 		}
+
+		public boolean isDebugEnabled() {
+			return target.isDebugEnabled();
+		}
+
+		public boolean isInfoEnabled() {
+			return target.isInfoEnabled();
+		}
+
+		public boolean isWarningEnabled() {
+			return target.isWarningEnabled();
+		}
+
+		public boolean isErrorEnabled() {
+			return target.isErrorEnabled();
+		}
 	}
 
 }
@@ -1,81 +1,68 @@
 package net.davidashen.text;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.nio.charset.Charset;
+
+import net.davidashen.text.Utf8TexParser.TexParserException;
 import net.davidashen.util.ErrorHandler;
 
 public class HyphenatorUI {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final String USAGE =
+			"call: java net.davidashen.text.HyphenatorUI word table.tex [codes.txt]\n"
+			+ "  or: java net.davidashen.text.HyphenatorUI -batch [options] table.tex [file ...]\n"
+			+ "  or: java net.davidashen.text.HyphenatorUI -daemon [options] [-port n] table.tex\n"
+			+ "options:\n"
+			+ "  -utf8              the table is in UTF-8 (default: one byte codes)\n"
+			+ "  -codes codes.txt   code list for a table with one byte codes\n"
+			+ "  -threads n         number of worker threads (default: 1)\n"
+			+ "  -hyphenmin l r     unbreakable characters at the beginning and end of words (default: 1 1)\n"
+			+ "  -port n            port of the daemon on the loopback address (default: any free port)\n"
+			+ "  -connections n     connections the daemon serves at a time, others wait (default: 16)\n"
+			+ "In batch mode, files, or standard input if there are none or for '-', are read in UTF-8,\n"
+			+ "and hyphenated line by line to standard output in UTF-8.\n"
+			+ "In daemon mode, requests and responses are a four byte big endian length followed by\n"
+			+ "that many bytes of UTF-8 text. Requests may be pipelined.";
 
 	/**
 	 * Simple command-line invocation -- serves as example
 	 * @param args the command line arguments
 	 */
 	public static void main(String[] args) {
+		if (args.length > 0 && args[0].equals("-batch")) {
+			batch(args);
+			return;
+		}
+		if (args.length > 0 && args[0].equals("-daemon")) {
+			daemon(args);
+			return;
+		}
 		Hyphenator hyphenator = new Hyphenator();
-		hyphenator.setErrorHandler(new ErrorHandler() {
-			public void debug(String guard, String s) {
-			}
-
-			public void info(String s) {
-				System.err.println(s);
-			}
-
-			public void warning(String s) {
-				System.err.println("WARNING: " + s);
-			}
-
-			public void error(String s) {
-				System.err.println("ERROR: " + s);
-			}
-
-			public void exception(String s, Exception e) {
-				System.err.println("ERROR: " + s);
-				e.printStackTrace();
-			}
-
-			public boolean isDebugged(String guard) {
-				return false;
-			}
-		});
+		hyphenator.setErrorHandler(new ConsoleErrorHandler());
 		if (args.length != 2 && args.length != 3) {
-			System.err.println("call: java net.davidashen.text.Hyphenator word table.tex [codes.txt]");
+			System.err.println(USAGE);
 			System.exit(1);
 		}
 		java.io.InputStream table = null;
 		try {
-			table = new java.io.BufferedInputStream(new java.io.FileInputStream(args[1]));
+			table = new java.io.FileInputStream(args[1]);
 		} catch (java.io.IOException e) {
 			System.err.println("cannot open hyphenation table " + args[1] + ": " + e.toString());
 			System.exit(1);
 		}
-		int[] codelist = new int[256];
-		for (int i = 0; i != 256; ++i)
-			codelist[i] = i;
+		int[] codelist = identity();
 		if (args.length == 3) {
-			java.io.BufferedReader codes = null;
-			try {
-				codes = new java.io.BufferedReader(new java.io.FileReader(args[2]));
-			} catch (java.io.IOException e) {
-				System.err.println("cannot open code list" + args[2] + ": " + e.toString());
-				System.exit(1);
-			}
 			try {
-				String line;
-				while ((line = codes.readLine()) != null) {
-					java.util.StringTokenizer tokenizer = new java.util.StringTokenizer(line);
-					String token;
-					if (tokenizer.hasMoreTokens()) { // skip empty lines
-						token = tokenizer.nextToken();
-						if (!token.startsWith("%")) { // lines starting with %
-														// are comments
-							int key = Integer.decode(token).intValue(), value = key;
-							if (tokenizer.hasMoreTokens()) {
-								token = tokenizer.nextToken();
-								value = Integer.decode(token).intValue();
-							}
-							codelist[key] = value;
-						}
-					}
-				}
-				codes.close();
+				codelist = readCodeList(args[2]);
 			} catch (java.io.IOException e) {
 				System.err.println("error reading code list: " + e.toString());
 				System.exit(1);
@@ -93,4 +80,219 @@ public class HyphenatorUI {
 
 		System.out.println(args[0] + " -> " + hyphenator.hyphenate(args[0]));
 	}
+
+	private static void batch(String[] args) {
+		Options options = new Options(args);
+		if (options.port >= 0) {
+			usage();
+		}
+		Hyphenator hyphenator = options.loadHyphenator();
+		BatchHyphenator batch = new BatchHyphenator(hyphenator, options.left, options.right, options.threads);
+		Writer out = new BufferedWriter(new OutputStreamWriter(System.out, UTF8));
+		String input = null;
+		try {
+			if (options.table + 1 == args.length) {
+				batch.hyphenate(new BufferedReader(new InputStreamReader(System.in, UTF8)), out);
+			}
+			for (int i = options.table + 1; i < args.length; i++) {
+				input = args[i];
+				if (input.equals("-")) {
+					batch.hyphenate(new BufferedReader(new InputStreamReader(System.in, UTF8)), out);
+				} else {
+					BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(input), UTF8));
+					try {
+						batch.hyphenate(in, out);
+					} finally {
+						in.close();
+					}
+				}
+			}
+			out.flush();
+		} catch (IOException e) {
+			System.err.println("error hyphenating " + (input == null ? "standard input" : input) + ": " + e.toString());
+			System.exit(1);
+		}
+	}
+
+	private static void daemon(String[] args) {
+		Options options = new Options(args);
+		if (options.table + 1 != args.length) {
+			usage();
+		}
+		Hyphenator hyphenator = options.loadHyphenator();
+		HyphenationServer server = new HyphenationServer(hyphenator, options.left, options.right, options.threads,
+				options.connections);
+		try {
+			int port = server.start(Math.max(options.port, 0));
+			System.err.println("listening on " + InetAddress.getLoopbackAddress().getHostAddress() + ":" + port);
+		} catch (IOException e) {
+			System.err.println("cannot open server socket: " + e.toString());
+			System.exit(1);
+		}
+		// The server threads are daemon threads, keep the JVM alive until it is stopped
+		try {
+			Thread.currentThread().join();
+		} catch (InterruptedException e) {
+			// stop
+		}
+	}
+
+	/**
+	 * Options of batch and daemon mode, followed by the table.
+	 */
+	private static class Options {
+		boolean utf8 = false;
+		String codes = null;
+		int threads = 1, left = 1, right = 1, port = -1, connections = 16;
+		// index and name of the table argument
+		int table;
+		String tableFile;
+
+		Options(String[] args) {
+			int i = 1;
+			try {
+				for (; i < args.length && args[i].startsWith("-") && args[i].length() > 1; i++) {
+					if (args[i].equals("-utf8")) {
+						utf8 = true;
+					} else if (args[i].equals("-codes") && i + 1 < args.length) {
+						codes = args[++i];
+					} else if (args[i].equals("-threads") && i + 1 < args.length) {
+						threads = Integer.parseInt(args[++i]);
+					} else if (args[i].equals("-hyphenmin") && i + 2 < args.length) {
+						left = Integer.parseInt(args[++i]);
+						right = Integer.parseInt(args[++i]);
+					} else if (args[i].equals("-port") && i + 1 < args.length) {
+						port = Integer.parseInt(args[++i]);
+					} else if (args[i].equals("-connections") && i + 1 < args.length) {
+						connections = Integer.parseInt(args[++i]);
+					} else {
+						usage();
+					}
+				}
+			} catch (NumberFormatException e) {
+				usage();
+			}
+			if (i == args.length || (utf8 && codes != null) || threads < 1 || connections < 1) {
+				usage();
+			}
+			table = i;
+			tableFile = args[i];
+		}
+
+		Hyphenator loadHyphenator() {
+			try {
+				return HyphenatorUI.loadHyphenator(tableFile, utf8, codes);
+			} catch (Exception e) {
+				System.err.println("error loading hyphenation table " + tableFile + ": " + e.toString());
+				System.exit(1);
+				return null;
+			}
+		}
+	}
+
+	private static void usage() {
+		System.err.println(USAGE);
+		System.exit(1);
+	}
+
+	/**
+	 * Creates a hyphenator that reports problems on standard error, and loads
+	 * a table into it.
+	 *
+	 * @param table the table file
+	 * @param utf8 true if the table is in UTF-8, false if it has one byte codes
+	 * @param codes the code list file for a table with one byte codes, or null
+	 * @return the hyphenator
+	 * @throws IOException if a file cannot be read
+	 * @throws TexParserException if a UTF-8 table cannot be parsed
+	 */
+	static Hyphenator loadHyphenator(String table, boolean utf8, String codes) throws IOException, TexParserException {
+		Hyphenator hyphenator = new Hyphenator();
+		hyphenator.setErrorHandler(new ConsoleErrorHandler());
+		if (utf8) {
+			Reader reader = new InputStreamReader(new FileInputStream(table), UTF8);
+			try {
+				hyphenator.loadTable(reader);
+			} finally {
+				reader.close();
+			}
+		} else {
+			int[] codelist = codes == null ? identity() : readCodeList(codes);
+			InputStream in = new FileInputStream(table);
+			try {
+				hyphenator.loadTable(in, codelist);
+			} finally {
+				in.close();
+			}
+		}
+		return hyphenator;
+	}
+
+	private static int[] identity() {
+		int[] codelist = new int[256];
+		for (int i = 0; i != 256; ++i)
+			codelist[i] = i;
+		return codelist;
+	}
+
+	/**
+	 * Reads a code list, which maps one byte codes to UTF codes. Each line
+	 * holds a code and its UTF code, lines starting with % are comments.
+	 *
+	 * @param file the file name
+	 * @return an array of 256 elements
+	 * @throws IOException if the file cannot be read
+	 */
+	static int[] readCodeList(String file) throws IOException {
+		int[] codelist = identity();
+		java.io.BufferedReader codes = new java.io.BufferedReader(new java.io.FileReader(file));
+		try {
+			String line;
+			while ((line = codes.readLine()) != null) {
+				java.util.StringTokenizer tokenizer = new java.util.StringTokenizer(line);
+				String token;
+				if (tokenizer.hasMoreTokens()) { // skip empty lines
+					token = tokenizer.nextToken();
+					if (!token.startsWith("%")) { // lines starting with %
+													// are comments
+						int key = Integer.decode(token).intValue(), value = key;
+						if (tokenizer.hasMoreTokens()) {
+							token = tokenizer.nextToken();
+							value = Integer.decode(token).intValue();
+						}
+						codelist[key] = value;
+					}
+				}
+			}
+		} finally {
+			codes.close();
+		}
+		return codelist;
+	}
+
+	private static class ConsoleErrorHandler implements ErrorHandler {
+		public void debug(String guard, String s) {
+		}
+
+		public void info(String s) {
+			System.err.println(s);
+		}
+
+		public void warning(String s) {
+			System.err.println("WARNING: " + s);
+		}
+
+		public void error(String s) {
+			System.err.println("ERROR: " + s);
+		}
+
+		public void exception(String s, Exception e) {
+			System.err.println("ERROR: " + s);
+			e.printStackTrace();
+		}
+
+		public boolean isDebugEnabled() {
+			return false;
+		}
+	}
 }
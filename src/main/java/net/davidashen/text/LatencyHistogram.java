@@ -0,0 +1,114 @@
+package net.davidashen.text;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Histogram of durations in nanoseconds with a fixed relative precision,
+ * in the style of HdrHistogram. Values below 16 are counted exactly, larger
+ * values in buckets that are 1/16 of their power of two wide, so that any
+ * value read back is within 6.25% of the values recorded for it.</p>
+ *
+ * <p>The histogram can be updated by any number of threads without locking.
+ * Each bucket is a {@link LongAdder}, so threads recording similar durations
+ * at the same time do not contend for the same cache line; a bucket grows
+ * up to one cell per processor under contention. Buckets are created when
+ * a duration is first counted in them, so a histogram only holds the few
+ * dozen buckets its durations fall into.</p>
+ */
+public class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+	// null for buckets that nothing has been counted in
+	private final AtomicReferenceArray<LongAdder> counts = new AtomicReferenceArray<LongAdder>(BUCKETS);
+
+	/**
+	 * Counts a duration. Negative durations are counted as 0.
+	 *
+	 * @param nanos the duration
+	 */
+	public void record(long nanos) {
+		int bucket = bucketOf(Math.max(nanos, 0));
+		LongAdder count = counts.get(bucket);
+		if (count == null) {
+			counts.compareAndSet(bucket, null, new LongAdder());
+			count = counts.get(bucket);
+		}
+		count.increment();
+	}
+
+	/**
+	 * Gets the number of durations counted.
+	 *
+	 * @return the number of durations
+	 */
+	public long getCount() {
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			total += sum(i);
+		}
+		return total;
+	}
+
+	/**
+	 * Gets the duration that the given percentage of the counted durations
+	 * do not exceed.
+	 *
+	 * @param percentile the percentage, from 0 to 100
+	 * @return the largest value of the bucket containing the percentile, or 0
+	 *         if nothing has been counted
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long[] snapshot = new long[BUCKETS];
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			snapshot[i] = sum(i);
+			total += snapshot[i];
+		}
+		long rank = Math.max((long) Math.ceil(Math.min(Math.max(percentile, 0), 100) / 100 * total), 1);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += snapshot[i];
+			if (seen >= rank) {
+				return highestValueOf(i);
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Removes all counted durations.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			LongAdder count = counts.get(i);
+			if (count != null) {
+				count.reset();
+			}
+		}
+	}
+
+	private long sum(int bucket) {
+		LongAdder count = counts.get(bucket);
+		return count == null ? 0 : count.sum();
+	}
+
+	static int bucketOf(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int shift = exponent - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+	}
+
+	static long highestValueOf(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int shift = bucket / SUB_BUCKETS - 1;
+		long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+}
@@ -0,0 +1,72 @@
+package net.davidashen.text;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects problems found while loading a table, so that they can be
+ * reported once for the whole table rather than once for each line.
+ * Nothing is formatted until the messages are requested.
+ */
+final class LoadSummary {
+	private int duplicates = 0;
+	private TreeNode firstReplaced;
+	private String firstSegment;
+	private int[] firstHyphenation;
+	private Map<String, Integer> skipped;
+
+	/**
+	 * Records a pattern that replaced an earlier one for the same letters.
+	 *
+	 * @param replaced the earlier pattern, or null if there was none
+	 * @param segment the letters of the new pattern
+	 * @param hyphenation the values of the new pattern
+	 */
+	void duplicate(TreeNode replaced, String segment, int[] hyphenation) {
+		if (replaced != null && duplicates++ == 0) {
+			firstReplaced = replaced;
+			firstSegment = segment;
+			firstHyphenation = hyphenation;
+		}
+	}
+
+	/**
+	 * Records a command that was ignored.
+	 *
+	 * @param keyword the name of the command
+	 */
+	void skipped(String keyword) {
+		if (skipped == null) {
+			skipped = new LinkedHashMap<String, Integer>();
+		}
+		Integer count = skipped.get(keyword);
+		skipped.put(keyword, count == null ? 1 : count + 1);
+	}
+
+	/**
+	 * @return one message for each kind of problem, empty if there were none
+	 */
+	List<String> getMessages() {
+		List<String> messages = new ArrayList<String>();
+		if (duplicates > 0) {
+			messages.add(duplicates + (duplicates == 1 ? " duplicate pattern" : " duplicate patterns")
+					+ " replaced by later ones, e.g. '" + firstReplaced.getPattern() + "' by '"
+					+ new TreeNode(firstSegment, firstHyphenation).getPattern() + "'.");
+		}
+		if (skipped != null) {
+			StringBuilder message = new StringBuilder("Skipped unknown commands:");
+			String separator = " ";
+			for (Map.Entry<String, Integer> entry : skipped.entrySet()) {
+				message.append(separator).append('\\').append(entry.getKey());
+				if (entry.getValue() > 1) {
+					message.append(" (").append(entry.getValue()).append(" times)");
+				}
+				separator = ", ";
+			}
+			messages.add(message.append('.').toString());
+		}
+		return messages;
+	}
+}
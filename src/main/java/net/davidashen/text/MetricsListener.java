@@ -0,0 +1,60 @@
+package net.davidashen.text;
+
+/**
+ * <p>Receives counts and timings from a {@link Hyphenator}, see
+ * {@link Hyphenator#setMetricsListener(MetricsListener)}. All methods do
+ * nothing by default, so implementations only override what they need.</p>
+ *
+ * <p>Methods are called on the thread that hyphenates or loads the table,
+ * possibly by several threads at once, and should return quickly.</p>
+ *
+ * <p>Only {@link Hyphenator#hyphenate(String)} and
+ * {@link Hyphenator#hyphenate(String, int, int)}, and so the batch and server
+ * front ends built on them, are counted and timed. The methods for single
+ * words, such as {@link Hyphenator#hyphenateWord(char[], int, int, int, int, int[])},
+ * {@link Hyphenator#hyphenationMask(CharSequence, int, int)} and
+ * {@link Hyphenator#countHyphenationPoints(CharSequence, int, int)}, are not:
+ * they take little more time than reading the clock, and are meant for hot
+ * loops that do not allocate.</p>
+ *
+ * @see MetricsRecorder
+ */
+public interface MetricsListener {
+	/**
+	 * Listener that ignores everything. A hyphenator with this listener does
+	 * not count or time anything.
+	 */
+	MetricsListener NONE = new MetricsListener() { };
+
+	/**
+	 * Called after each call to {@link Hyphenator#hyphenate(String, int, int)}.
+	 *
+	 * @param words the number of words hyphenated, not including words
+	 *            skipped because of the {@link WordLimits}
+	 * @param exceptionHits the number of words found in the exceptions, all
+	 *            other words were hyphenated with the patterns
+	 * @param nanos the duration of the call, in nanoseconds
+	 */
+	default void hyphenated(int words, int exceptionHits, long nanos) {
+	}
+
+	/**
+	 * Called after a call to hyphenate that skipped words because of the
+	 * {@link WordLimits}, once for each reason.
+	 *
+	 * @param reason why the words were skipped
+	 * @param words the number of words skipped for the reason
+	 */
+	default void skipped(WordLimits.SkipReason reason, int words) {
+	}
+
+	/**
+	 * Called after a table has been loaded.
+	 *
+	 * @param patterns the number of patterns in the rule set
+	 * @param exceptions the number of exceptions in the rule set
+	 * @param nanos the time it took to read and compile the table, in nanoseconds
+	 */
+	default void tableLoaded(int patterns, int exceptions, long nanos) {
+	}
+}
@@ -0,0 +1,136 @@
+package net.davidashen.text;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Metrics listener that keeps totals and a latency histogram, for
+ * example to publish them to a monitoring system:</p>
+ *
+ * <pre>
+ * MetricsRecorder metrics = new MetricsRecorder();
+ * hyphenator.setMetricsListener(metrics);
+ * ...
+ * long words = metrics.getWords();
+ * long p99 = metrics.getLatency().getValueAtPercentile(99);
+ * </pre>
+ *
+ * <p>The counters can be updated by any number of threads with little
+ * contention. They cover calls to {@link Hyphenator#hyphenate(String, int, int)}
+ * only, see {@link MetricsListener}.</p>
+ */
+public class MetricsRecorder implements MetricsListener {
+	private final LongAdder calls = new LongAdder();
+	private final LongAdder words = new LongAdder();
+	private final LongAdder exceptionHits = new LongAdder();
+	private final LongAdder[] skipped = new LongAdder[WordLimits.SkipReason.values().length];
+	private final LongAdder tableLoads = new LongAdder();
+	private final LongAdder tableLoadNanos = new LongAdder();
+	private final LatencyHistogram latency = new LatencyHistogram();
+
+	public MetricsRecorder() {
+		for (int i = 0; i < skipped.length; i++) {
+			skipped[i] = new LongAdder();
+		}
+	}
+
+	public void hyphenated(int words, int exceptionHits, long nanos) {
+		this.calls.increment();
+		this.words.add(words);
+		this.exceptionHits.add(exceptionHits);
+		this.latency.record(nanos);
+	}
+
+	public void skipped(WordLimits.SkipReason reason, int words) {
+		skipped[reason.ordinal()].add(words);
+	}
+
+	public void tableLoaded(int patterns, int exceptions, long nanos) {
+		tableLoads.increment();
+		tableLoadNanos.add(nanos);
+	}
+
+	/**
+	 * @return the number of calls to hyphenate
+	 */
+	public long getCalls() {
+		return calls.sum();
+	}
+
+	/**
+	 * @return the number of words hyphenated
+	 */
+	public long getWords() {
+		return words.sum();
+	}
+
+	/**
+	 * @return the number of words found in the exceptions
+	 */
+	public long getExceptionHits() {
+		return exceptionHits.sum();
+	}
+
+	/**
+	 * @return the number of words hyphenated with the patterns
+	 */
+	public long getPatternHits() {
+		// Read exceptions first, so that a concurrent update cannot make this negative
+		long exceptions = exceptionHits.sum();
+		return words.sum() - exceptions;
+	}
+
+	/**
+	 * @param reason the reason
+	 * @return the number of words skipped for the reason
+	 */
+	public long getSkippedWords(WordLimits.SkipReason reason) {
+		return skipped[reason.ordinal()].sum();
+	}
+
+	/**
+	 * @return the number of words skipped for any reason
+	 */
+	public long getSkippedWords() {
+		long sum = 0;
+		for (LongAdder adder : skipped) {
+			sum += adder.sum();
+		}
+		return sum;
+	}
+
+	/**
+	 * @return the number of tables loaded
+	 */
+	public long getTableLoads() {
+		return tableLoads.sum();
+	}
+
+	/**
+	 * @return the total time spent loading tables, in nanoseconds
+	 */
+	public long getTableLoadNanos() {
+		return tableLoadNanos.sum();
+	}
+
+	/**
+	 * @return the durations of the calls to hyphenate
+	 */
+	public LatencyHistogram getLatency() {
+		return latency;
+	}
+
+	/**
+	 * Sets all counters to zero.
+	 */
+	public void reset() {
+		calls.reset();
+		words.reset();
+		exceptionHits.reset();
+		for (LongAdder adder : skipped) {
+			adder.reset();
+		}
+		tableLoads.reset();
+		tableLoadNanos.reset();
+		latency.reset();
+	}
+}
@@ -0,0 +1,50 @@
+package net.davidashen.text;
+
+/**
+ * Management interface for the rule set of a {@link Hyphenator}, see
+ * {@link Hyphenator#registerMBean(String)}. The counts are for the current
+ * rule set, including updates made with
+ * {@link Hyphenator#addPatterns(String...)} and similar methods. They are
+ * -1 for rule sets not created by this library.
+ */
+public interface RuleSetMXBean {
+
+	/**
+	 * @return the number of patterns
+	 */
+	int getPatternCount();
+
+	/**
+	 * @return the number of nodes in the pattern tree, at least the number
+	 *         of patterns
+	 */
+	int getNodeCount();
+
+	/**
+	 * @return the number of exceptions
+	 */
+	int getExceptionCount();
+
+	/**
+	 * @return the estimated heap used by the rule set, in bytes, assuming a
+	 *         64 bit JVM with compressed references
+	 */
+	long getEstimatedBytes();
+
+	/**
+	 * @return the file name of the last table loaded, if known
+	 */
+	String getSource();
+
+	/**
+	 * @return the time it took to load the last table, in milliseconds, or -1
+	 *         if no table has been loaded
+	 */
+	double getLoadTimeMillis();
+
+	/**
+	 * @return the time the last table was loaded, in milliseconds since the
+	 *         epoch, or -1 if no table has been loaded
+	 */
+	long getLoadedAt();
+}
@@ -0,0 +1,117 @@
+package net.davidashen.text;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import net.davidashen.text.Utf8TexParser.TexParserException;
+import net.davidashen.util.ErrorHandler;
+import net.davidashen.util.LoggingErrorHandler;
+
+/**
+ * <p>Merges several hyphenation tables into one rule set, for example a
+ * base table, a house style table and a list of exceptions:</p>
+ *
+ * <pre>
+ * RuleDefinition rules = new RuleSetMerger()
+ *         .add(baseTable)
+ *         .add(houseStyleTable, codelist)
+ *         .add(tenantRules)
+ *         .merge();
+ * </pre>
+ *
+ * <p>Tables are added in order of increasing precedence: a pattern replaces
+ * any pattern from an earlier table for the same letters (whatever the values
+ * between them), and an exception replaces any exception from an earlier table
+ * for the same word. Each table is parsed directly into the merged rules, and
+ * the rule set is built once when {@link #merge()} is called.</p>
+ *
+ * <p>More tables can be added after calling merge, rule sets already returned
+ * are not affected.</p>
+ */
+public class RuleSetMerger {
+	private final ErrorHandler errorHandler;
+	private final Map<String, int[]> exceptions = new HashMap<String, int[]>();
+	private TreeNode root = TreeNode.createRoot();
+	// Whether root belongs to a rule set returned by merge, and must be copied before it is changed
+	private boolean rootShared = false;
+
+	/**
+	 * Creates an empty merger. Problems in tables with one byte codes are
+	 * logged.
+	 */
+	public RuleSetMerger() {
+		this(new LoggingErrorHandler(Logger.getLogger(RuleSetMerger.class.getCanonicalName())));
+	}
+
+	/**
+	 * Creates an empty merger.
+	 *
+	 * @param errorHandler receives problems in tables with one byte codes
+	 */
+	public RuleSetMerger(ErrorHandler errorHandler) {
+		this.errorHandler = errorHandler;
+	}
+
+	/**
+	 * Adds a table in a character encoding such as UTF-8, see
+	 * {@link Hyphenator#loadTable(Reader)}.
+	 *
+	 * @param reader a reader containing hyphenation patterns
+	 * @return this merger
+	 * @throws TexParserException if there are problems reading the input
+	 */
+	public RuleSetMerger add(Reader reader) throws TexParserException {
+		new Utf8TexParser().parse(reader, getRoot(), exceptions);
+		return this;
+	}
+
+	/**
+	 * Adds a table with one byte codes, see
+	 * {@link Hyphenator#loadTable(InputStream, int[])}.
+	 *
+	 * @param in hyphenation table
+	 * @param codelist an array of 256 elements. maps one-byte codes to UTF codes
+	 * @return this merger
+	 */
+	public RuleSetMerger add(InputStream in, int[] codelist) {
+		new ByteScanner(errorHandler).scan(in, codelist, getRoot(), exceptions);
+		return this;
+	}
+
+	/**
+	 * Adds a rule set created by this library, by {@link Utf8TexParser},
+	 * {@link Hyphenator#loadTable(Reader)} or another merger.
+	 *
+	 * @param rules the rule set
+	 * @return this merger
+	 * @throws IllegalArgumentException if the rule set was created elsewhere
+	 */
+	public RuleSetMerger add(RuleDefinition rules) {
+		if (!(rules instanceof TreeNodeScanner)) {
+			throw new IllegalArgumentException("Cannot merge rule set: " + rules.getClass().getName());
+		}
+		((TreeNodeScanner) rules).addTo(getRoot(), exceptions);
+		return this;
+	}
+
+	/**
+	 * Builds a rule set from all tables added so far.
+	 *
+	 * @return the rule set
+	 */
+	public RuleDefinition merge() {
+		rootShared = true;
+		return new TreeNodeScanner(root, new HashMap<String, int[]>(exceptions));
+	}
+
+	private TreeNode getRoot() {
+		if (rootShared) {
+			root = root.copy();
+			rootShared = false;
+		}
+		return root;
+	}
+}
@@ -0,0 +1,171 @@
+package net.davidashen.text;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * <p>Implementation of {@link RuleSetMXBean} for a hyphenator. The statistics
+ * are computed when first requested after the rule set has changed.</p>
+ *
+ * <p>The monitor only holds weak references to the hyphenator and its rule
+ * set, so a registered hyphenator that is discarded without being
+ * unregistered can still be garbage collected. Its MBean then reports no
+ * rule set, and is unregistered on the next registration.</p>
+ */
+final class RuleSetMonitor implements RuleSetMXBean {
+	// Monitors registered with the platform MBean server, by name
+	private static final Map<ObjectName, RuleSetMonitor> registered = new HashMap<ObjectName, RuleSetMonitor>();
+	// Receives the references of registered hyphenators that were garbage collected
+	private static final ReferenceQueue<Hyphenator> collected = new ReferenceQueue<Hyphenator>();
+	private final HyphenatorReference hyphenator;
+	private volatile Statistics statistics;
+
+	RuleSetMonitor(Hyphenator hyphenator) {
+		this.hyphenator = new HyphenatorReference(hyphenator, null, null);
+	}
+
+	private RuleSetMonitor(Hyphenator hyphenator, ObjectName name) {
+		this.hyphenator = new HyphenatorReference(hyphenator, name, collected);
+	}
+
+	/**
+	 * Registers a monitor for a hyphenator with the platform MBean server.
+	 * A name used by a hyphenator that was garbage collected is reused.
+	 *
+	 * @param hyphenator the hyphenator
+	 * @param name the name of the MBean
+	 * @return the monitor
+	 * @throws JMException if the MBean cannot be registered, e.g. because the
+	 *             name is used by another hyphenator
+	 */
+	static RuleSetMonitor register(Hyphenator hyphenator, ObjectName name) throws JMException {
+		synchronized (registered) {
+			HyphenatorReference reference;
+			while ((reference = (HyphenatorReference) collected.poll()) != null) {
+				unregister(reference.name, reference);
+			}
+			RuleSetMonitor existing = registered.get(name);
+			if (existing != null && existing.hyphenator.get() == null) {
+				unregister(name, existing.hyphenator);
+			}
+			RuleSetMonitor monitor = new RuleSetMonitor(hyphenator, name);
+			ManagementFactory.getPlatformMBeanServer().registerMBean(monitor, name);
+			registered.put(name, monitor);
+			return monitor;
+		}
+	}
+
+	/**
+	 * Unregisters the monitor, unless another one has replaced it.
+	 *
+	 * @throws JMException if the MBean cannot be unregistered
+	 */
+	void unregister() throws JMException {
+		synchronized (registered) {
+			unregister(hyphenator.name, hyphenator);
+		}
+	}
+
+	private static void unregister(ObjectName name, HyphenatorReference reference) throws JMException {
+		RuleSetMonitor monitor = registered.get(name);
+		if (monitor != null && monitor.hyphenator == reference) {
+			registered.remove(name);
+			if (ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+			}
+		}
+	}
+
+	/**
+	 * @return the name of the MBean, or null if the monitor was not registered
+	 */
+	ObjectName getObjectName() {
+		return hyphenator.name;
+	}
+
+	public int getPatternCount() {
+		return getStatistics().patterns;
+	}
+
+	public int getNodeCount() {
+		return getStatistics().nodes;
+	}
+
+	public int getExceptionCount() {
+		return getStatistics().exceptions;
+	}
+
+	public long getEstimatedBytes() {
+		return getStatistics().bytes;
+	}
+
+	public String getSource() {
+		Hyphenator current = hyphenator.get();
+		return current == null ? null : current.getLastLoad().source;
+	}
+
+	public double getLoadTimeMillis() {
+		Hyphenator current = hyphenator.get();
+		long nanos = current == null ? -1 : current.getLastLoad().nanos;
+		return nanos < 0 ? -1 : nanos / 1e6;
+	}
+
+	public long getLoadedAt() {
+		Hyphenator current = hyphenator.get();
+		return current == null ? -1 : current.getLastLoad().loadedAt;
+	}
+
+	private Statistics getStatistics() {
+		Hyphenator current = hyphenator.get();
+		RuleDefinition rules = current == null ? null : current.getRuleSet();
+		Statistics last = statistics;
+		// Without a rule set, the reference of the last statistics may have been cleared
+		if (last == null || rules == null || last.rules.get() != rules) {
+			last = new Statistics(rules);
+			statistics = last;
+		}
+		return last;
+	}
+
+	/**
+	 * Weak reference to the hyphenator of a monitor, with the name the
+	 * monitor is registered under.
+	 */
+	private static final class HyphenatorReference extends WeakReference<Hyphenator> {
+		final ObjectName name;
+
+		HyphenatorReference(Hyphenator hyphenator, ObjectName name, ReferenceQueue<Hyphenator> queue) {
+			super(hyphenator, queue);
+			this.name = name;
+		}
+	}
+
+	private static final class Statistics {
+		// Weak, so that the statistics do not keep a replaced rule set alive
+		final WeakReference<RuleDefinition> rules;
+		final int patterns;
+		final int nodes;
+		final int exceptions;
+		final long bytes;
+
+		Statistics(RuleDefinition rules) {
+			this.rules = new WeakReference<RuleDefinition>(rules);
+			if (rules instanceof TreeNodeScanner) {
+				TreeNodeScanner scanner = (TreeNodeScanner) rules;
+				patterns = scanner.getPatternCount();
+				nodes = scanner.getNodeCount();
+				exceptions = scanner.getExceptionCount();
+				bytes = scanner.getEstimatedBytes();
+			} else {
+				patterns = nodes = exceptions = -1;
+				bytes = -1;
+			}
+		}
+	}
+}
@@ -0,0 +1,175 @@
+package net.davidashen.text;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+import net.davidashen.text.Utf8TexParser.TexParserException;
+
+/**
+ * <p>Reloads a hyphenation table into a {@link Hyphenator} whenever the table
+ * file changes.</p>
+ *
+ * <p>The new table is parsed and compiled on a background thread and then
+ * replaces the rule set of the hyphenator atomically. Calls to hyphenate in progress complete
+ * with the old rule set, and no call has to wait for the reload. If the new
+ * table cannot be read, the error is reported to the hyphenator's error
+ * handler and the old rule set is kept.</p>
+ *
+ * <p>A reload replaces the whole rule set, including updates made with
+ * {@link Hyphenator#addPatterns(String...)} and similar methods.</p>
+ */
+public class TableWatcher implements Closeable {
+	// Time without further changes before a table is reloaded. Editors and copy tools
+	// often write a file in several steps.
+	private static final long QUIET_PERIOD = 100;
+	private final Hyphenator hyphenator;
+	private final Path table;
+	private final Charset charset;
+	private final int[] codelist;
+	private WatchService watchService;
+
+	/**
+	 * Creates a watcher for a table in a character encoding such as UTF-8,
+	 * see {@link Hyphenator#loadTable(Reader)}.
+	 *
+	 * @param hyphenator the hyphenator to load the table into
+	 * @param table the table file
+	 * @param charset the encoding of the table
+	 */
+	public TableWatcher(Hyphenator hyphenator, Path table, Charset charset) {
+		this(hyphenator, table, charset, null);
+	}
+
+	/**
+	 * Creates a watcher for a table with one byte codes, see
+	 * {@link Hyphenator#loadTable(InputStream, int[])}.
+	 *
+	 * @param hyphenator the hyphenator to load the table into
+	 * @param table the table file
+	 * @param codelist an array of 256 elements. maps one-byte codes to UTF codes
+	 */
+	public TableWatcher(Hyphenator hyphenator, Path table, int[] codelist) {
+		this(hyphenator, table, null, codelist);
+	}
+
+	private TableWatcher(Hyphenator hyphenator, Path table, Charset charset, int[] codelist) {
+		this.hyphenator = hyphenator;
+		this.table = table.toAbsolutePath();
+		this.charset = charset;
+		this.codelist = codelist;
+	}
+
+	/**
+	 * Loads the table and starts watching it for changes.
+	 *
+	 * @throws IOException if the table cannot be read or watched
+	 * @throws TexParserException if the table cannot be parsed
+	 */
+	public synchronized void start() throws IOException, TexParserException {
+		if (watchService != null) {
+			throw new IllegalStateException("Already started");
+		}
+		reload();
+		watchService = table.getFileSystem().newWatchService();
+		table.getParent().register(watchService,
+				StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+		Thread thread = new Thread(new Watcher(watchService), "TableWatcher " + table.getFileName());
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stops watching the table. The hyphenator keeps the current rule set.
+	 */
+	public synchronized void close() throws IOException {
+		if (watchService != null) {
+			watchService.close();
+		}
+	}
+
+	/**
+	 * Parses the table and replaces the rule set of the hyphenator. Reloads
+	 * are serialized, so the rule set published last is always from the
+	 * latest parse.
+	 *
+	 * @throws IOException if the table cannot be read
+	 * @throws TexParserException if the table cannot be parsed
+	 */
+	public synchronized void reload() throws IOException, TexParserException {
+		long start = System.nanoTime();
+		Object event = FlightRecorderEvents.beginTableLoad();
+		RuleDefinition rules;
+		if (codelist == null) {
+			Reader reader = Files.newBufferedReader(table, charset);
+			try {
+				rules = new Utf8TexParser().parse(reader);
+			} finally {
+				reader.close();
+			}
+		} else {
+			InputStream in = Files.newInputStream(table);
+			try {
+				rules = new RuleSetMerger(hyphenator.getErrorHandler()).add(in, codelist).merge();
+			} finally {
+				in.close();
+			}
+		}
+		hyphenator.setRuleSet(Hyphenator.compileTables(rules));
+		hyphenator.reportTableLoaded(event, table.toString(),
+				codelist == null ? Hyphenator.TEXT_FORMAT : Hyphenator.BYTE_FORMAT, rules, start);
+	}
+
+	private boolean isTableChanged(WatchKey key) {
+		boolean changed = false;
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (event.kind() == StandardWatchEventKinds.OVERFLOW || table.getFileName().equals(event.context())) {
+				changed = true;
+			}
+		}
+		key.reset();
+		return changed;
+	}
+
+	private class Watcher implements Runnable {
+		private final WatchService watchService;
+
+		Watcher(WatchService watchService) {
+			this.watchService = watchService;
+		}
+
+		public void run() {
+			try {
+				for (;;) {
+					if (!isTableChanged(watchService.take())) {
+						continue;
+					}
+					WatchKey key;
+					while ((key = watchService.poll(QUIET_PERIOD, TimeUnit.MILLISECONDS)) != null) {
+						isTableChanged(key);
+					}
+					try {
+						reload();
+						hyphenator.getErrorHandler().info("Reloaded hyphenation table " + table);
+					} catch (Exception e) {
+						hyphenator.getErrorHandler().exception("Cannot reload hyphenation table " + table, e);
+					}
+				}
+			} catch (InterruptedException e) {
+				// stop watching
+			} catch (ClosedWatchServiceException e) {
+				// stop watching
+			}
+		}
+	}
+}
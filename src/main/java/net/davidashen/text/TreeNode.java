@@ -1,10 +1,9 @@
 package net.davidashen.text;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
-import java.util.Hashtable;
-import java.util.Map;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import net.davidashen.util.List;
@@ -17,19 +16,16 @@ public class TreeNode {
 	private final  String segment;
 	private final int[] hyphenation;
 	private final boolean blank;
-	private final Map<Character, TreeNode> children = new Hashtable<Character, TreeNode>();
-
-	private static final Comparator<TreeNode> CHILD_ORDER_COMPARATOR = new Comparator<TreeNode>() {
-		public int compare(TreeNode o1, TreeNode o2) {
-			if( o1.getLastCharacter() > o2.getLastCharacter()) {
-				return 1;
-			} else if (o1.getLastCharacter() < o2.getLastCharacter())  {
-				return -1;
-			} else {
-				return 0;
-			}
-		}
-	};
+	// Children are kept sorted by their last character, so that lookups can use
+	// a binary search without boxing the key.
+	private char[] childKeys = NO_KEYS;
+	private TreeNode[] childNodes = NO_NODES;
+	private int childCount = 0;
+	// List structure shared by all trees containing this node, see compile()
+	private List compiled;
+
+	private static final char[] NO_KEYS = new char[0];
+	private static final TreeNode[] NO_NODES = new TreeNode[0];
 	
 	/**
 	 * Create a root node to create all other nodes inside.
@@ -65,7 +61,7 @@ public class TreeNode {
 		}
 		
 
-		if(largeHyphenation) {
+		if(largeHyphenation && log.isLoggable(Level.WARNING)) {
 			final String msg = "Pattern \' " + pattern+ " \' contained a hyphernation larger than 9.";
 			log.warning(msg);
 		}
@@ -116,6 +112,16 @@ public class TreeNode {
 		this.blank = false;
 	}
 
+	/**
+	 * Create a copy of a node. The children are shared with the source node.
+	 */
+	private TreeNode(TreeNode source) {
+		this.segment = source.segment;
+		this.hyphenation = source.hyphenation;
+		this.blank = source.blank;
+		copyChildren(source);
+	}
+
 	/**
 	 * Add a child rule to this node. The child node must match a longer, more
 	 * specialized, segment than the segment of the node it is added to.
@@ -127,51 +133,258 @@ public class TreeNode {
 	 *            They hypenation information for this match
 	 */
 	public void createChild(String segment, int[] hyphenation) {
-		if (!segment.startsWith(this.segment)) {
+		TreeNode replaced = insert(segment, hyphenation);
+		if (replaced != null && log.isLoggable(Level.WARNING)) {
+			final String msg = 
+					"Duplicate pattern. Pattern \'" +replaced.getPattern() + "\' will be replaced by \'" + new TreeNode(segment, hyphenation).getPattern()+ "\'.";
+			log.warning(msg);
+		}
+	}
+
+	/**
+	 * Add a child rule to this node, like {@link #createChild(String, int[])},
+	 * but without reporting duplicates.
+	 * 
+	 * @param segment
+	 *            The string of text that this rule matches against
+	 * @param hyphenation
+	 *            They hypenation information for this match
+	 * @return the node that was replaced, or null if the segment did not have
+	 *         any hyphenation information before
+	 */
+	TreeNode insert(String segment, int[] hyphenation) {
+		if (!segment.startsWith(this.segment) || segment.length() == this.segment.length()) {
 			throw new IllegalArgumentException("Can not add child \'" + segment
 					+ "\' to parent \'" + this.segment + "\'");
 		}
 
+		// Walk down to the parent of the new node, adding place holders as needed
+		TreeNode parent = this;
+		for (int depth = this.segment.length(); depth < segment.length() - 1; depth++) {
+			parent.compiled = null;
+			int index = parent.indexOf(segment.charAt(depth));
+			if (index < 0) {
+				index = -index - 1;
+				parent.addChild(index, new TreeNode(segment.substring(0, depth + 1)));
+			}
+			parent = parent.childNodes[index];
+		}
+
+		parent.compiled = null;
 		TreeNode newNode = new TreeNode(segment, hyphenation);
+		final int index = parent.indexOf(newNode.getLastCharacter());
+		if (index < 0) {
+			parent.addChild(-index - 1, newNode);
+			return null;
+		}
+		final TreeNode existingNode = parent.childNodes[index];
+		newNode.copyChildren(existingNode);
+		parent.childNodes[index] = newNode;
+		return existingNode.isBlank() ? null : existingNode;
+	}
+
+	/**
+	 * Add all rules of another tree to this node, like {@link #insert(String, int[])}.
+	 * The other tree is not modified.
+	 * 
+	 * @param source the other tree
+	 */
+	void insertAll(TreeNode source) {
+		for (int i = 0; i < source.childCount; i++) {
+			final TreeNode child = source.childNodes[i];
+			if (!child.isBlank()) {
+				insert(child.segment, child.hyphenation);
+			}
+			insertAll(child);
+		}
+	}
 
+	/**
+	 * Create a copy of this tree with a child rule added, leaving this tree
+	 * unchanged. Only the nodes on the path to the new rule are copied, all
+	 * other nodes are shared between the trees.
+	 * 
+	 * @param segment
+	 *            The string of text that this rule matches against
+	 * @param hyphenation
+	 *            They hypenation information for this match
+	 * @return the new tree
+	 */
+	TreeNode withChild(String segment, int[] hyphenation) {
+		if (!segment.startsWith(this.segment) || segment.length() == this.segment.length()) {
+			throw new IllegalArgumentException("Can not add child \'" + segment
+					+ "\' to parent \'" + this.segment + "\'");
+		}
+		final int index = indexOf(segment.charAt(this.segment.length()));
+		TreeNode child;
 		if (segment.length() == this.segment.length() + 1) {
-			final char keyChar = segment.charAt(segment.length() - 1);
-			
-			if(children.containsKey(keyChar)) {
-				final TreeNode existingNode = children.get(keyChar);
-				if(!existingNode.isBlank()) {
-					final String msg = 
-							"Duplicate pattern. Pattern \'" +existingNode.getPattern() + "\' will be replaced by \'" + newNode.getPattern()+ "\'.";
-					log.warning(msg);
+			child = new TreeNode(segment, hyphenation);
+			if (index >= 0) {
+				child.copyChildren(childNodes[index]);
+			}
+		} else if (index >= 0) {
+			child = childNodes[index].withChild(segment, hyphenation);
+		} else {
+			child = new TreeNode(segment.substring(0, this.segment.length() + 1)).withChild(segment, hyphenation);
+		}
 
-				}
-				newNode.copyChildren(existingNode);
+		TreeNode copy = new TreeNode(this);
+		if (index >= 0) {
+			copy.childNodes[index] = child;
+		} else {
+			copy.addChild(-index - 1, child);
+		}
+		return copy;
+	}
+
+	/**
+	 * Create a copy of this tree with a child rule removed, leaving this tree
+	 * unchanged. Nodes that are no longer needed by the tree structure are
+	 * removed as well. Only the nodes on the path to the rule are copied, all
+	 * other nodes are shared between the trees.
+	 * 
+	 * @param segment
+	 *            The string of text that the rule matches against
+	 * @return the new tree, or this tree if it did not contain the rule
+	 */
+	TreeNode withoutChild(String segment) {
+		if (!segment.startsWith(this.segment) || segment.length() == this.segment.length()) {
+			return this;
+		}
+		final int index = indexOf(segment.charAt(this.segment.length()));
+		if (index < 0) {
+			return this;
+		}
+		final TreeNode child = childNodes[index];
+		TreeNode newChild;
+		if (segment.length() == child.segment.length()) {
+			if (child.isBlank()) {
+				return this;
 			}
-				
-			children.put(keyChar, newNode);
+			newChild = new TreeNode(child.segment);
+			newChild.copyChildren(child);
 		} else {
-			final char keyCharacter = segment.charAt(this.segment.length());
-			if(!hasChild(keyCharacter)){
-				addBlankChild(keyCharacter);
+			newChild = child.withoutChild(segment);
+			if (newChild == child) {
+				return this;
+			}
+		}
+
+		TreeNode copy = new TreeNode(this);
+		if (newChild.isBlank() && newChild.childCount == 0) {
+			copy.removeChild(index);
+		} else {
+			copy.childNodes[index] = newChild;
+		}
+		return copy;
+	}
+
+	/**
+	 * Create a copy of this tree that does not share any nodes with it.
+	 * @return the new tree
+	 */
+	TreeNode copy() {
+		TreeNode copy = new TreeNode(this);
+		for (int i = 0; i < childCount; i++) {
+			copy.childNodes[i] = childNodes[i].copy();
+		}
+		return copy;
+	}
+
+	/**
+	 * Count the patterns in this tree, i.e. all nodes with values.
+	 * @return the number of patterns
+	 */
+	int countPatterns() {
+		int count = blank ? 0 : 1;
+		for (int i = 0; i < childCount; i++) {
+			count += childNodes[i].countPatterns();
+		}
+		return count;
+	}
+
+	/**
+	 * Count the nodes in this tree, including nodes without values but not
+	 * the root.
+	 * @return the number of nodes
+	 */
+	int countNodes() {
+		int count = isRoot() ? 0 : 1;
+		for (int i = 0; i < childCount; i++) {
+			count += childNodes[i].countNodes();
+		}
+		return count;
+	}
+
+	/**
+	 * Estimate the heap used by this tree, including the List structures
+	 * created by {@link #compile()}.
+	 * @return the estimated number of bytes
+	 * @see HeapEstimate
+	 */
+	long estimateBytes() {
+		// segment, hyphenation, childKeys, childNodes, compiled; blank, childCount
+		long bytes = HeapEstimate.object(5, 5)
+				+ HeapEstimate.string(segment)
+				+ HeapEstimate.array(4, hyphenation.length);
+		if (childKeys != NO_KEYS) {
+			bytes += HeapEstimate.array(2, childKeys.length) + HeapEstimate.array(HeapEstimate.REFERENCE, childNodes.length);
+		}
+		if (compiled != null) {
+			// List with head, tail and length, two sentinel links and one link per element
+			long link = HeapEstimate.object(2, 0);
+			bytes += HeapEstimate.object(2, 4) + link * (2 + childCount + (isRoot() ? 0 : 2));
+			if (!isRoot() && getLastCharacter() > 127) {
+				// Character.valueOf only caches ASCII
+				bytes += HeapEstimate.object(0, 2);
 			}
-			getChild(keyCharacter).createChild(segment, hyphenation);
 		}
+		for (int i = 0; i < childCount; i++) {
+			bytes += childNodes[i].estimateBytes();
+		}
+		return bytes;
 	}
 
 	/**
 	 * Copy all children from another node.
 	 */
 	private void copyChildren(TreeNode source) {
-		for(char c : source.children.keySet() ) {
-			this.children.put(c, source.getChild(c));
+		this.childKeys = Arrays.copyOf(source.childKeys, source.childKeys.length);
+		this.childNodes = Arrays.copyOf(source.childNodes, source.childNodes.length);
+		this.childCount = source.childCount;
+	}
+
+	/**
+	 * Insert a child at the given position, keeping the children sorted.
+	 */
+	private void addChild(int index, TreeNode node) {
+		if (childCount == childKeys.length) {
+			int capacity = Math.max(2, childCount * 2);
+			childKeys = Arrays.copyOf(childKeys, capacity);
+			childNodes = Arrays.copyOf(childNodes, capacity);
 		}
+		System.arraycopy(childKeys, index, childKeys, index + 1, childCount - index);
+		System.arraycopy(childNodes, index, childNodes, index + 1, childCount - index);
+		childKeys[index] = node.getLastCharacter();
+		childNodes[index] = node;
+		childCount++;
+	}
+
+	/**
+	 * Remove the child at the given position, keeping the children sorted.
+	 */
+	private void removeChild(int index) {
+		childCount--;
+		System.arraycopy(childKeys, index + 1, childKeys, index, childCount - index);
+		System.arraycopy(childNodes, index + 1, childNodes, index, childCount - index);
+		childNodes[childCount] = null;
 	}
 
 	/**
-	 * Add place holder node required by tree structure. 
+	 * Find the position of a child, as specified by {@link Arrays#binarySearch(char[], int, int, char)}.
 	 */
-	private void addBlankChild(char nodeCharacter) {
-		children.put(nodeCharacter, new TreeNode(this.segment + nodeCharacter));
+	private int indexOf(char c) {
+		return Arrays.binarySearch(childKeys, 0, childCount, c);
 	}
 
 	/**
@@ -216,11 +429,20 @@ public class TreeNode {
 	}
 	
 	public boolean hasChild(char c) {
-		return children.containsKey(c);
+		return indexOf(c) >= 0;
 	}
 	
 	public TreeNode getChild(char c) {
-		return children.get(c);
+		final int index = indexOf(c);
+		return index >= 0 ? childNodes[index] : null;
+	}
+
+	/**
+	 * Get the children of this node, in alphabetical order.
+	 * @return returns the child nodes
+	 */
+	Collection<TreeNode> getChildren() {
+		return Collections.unmodifiableList(Arrays.asList(childNodes).subList(0, childCount));
 	}
 
 	/**
@@ -247,17 +469,37 @@ public class TreeNode {
 		List list = new List();
 
 		if(!isRoot()) {
-			list.snoc(new Character(getLastCharacter()));
+			list.snoc(Character.valueOf(getLastCharacter()));
 			list.snoc(getHyphenation());
 		}	
 
 		//The List structures from the original implementation where in alphabetical order.
-		final ArrayList<TreeNode> childList = new ArrayList<TreeNode>(children.values());
-		Collections.sort(childList, CHILD_ORDER_COMPARATOR);
-		for(TreeNode c : childList) {
-			list.snoc(c.toList());
+		for(int i = 0; i < childCount; i++) {
+			list.snoc(childNodes[i].toList());
 		}
 		
 		return list;
 	}
+
+	/**
+	 * Get the List structure for this node, like {@link #toList()}, but
+	 * created only once. Trees that share a node also share its List structure,
+	 * so the structure must not be modified.
+	 * 
+	 * @return returns a list
+	 */
+	List compile() {
+		if (compiled == null) {
+			List list = new List();
+			if(!isRoot()) {
+				list.snoc(Character.valueOf(getLastCharacter()));
+				list.snoc(getHyphenation());
+			}
+			for(int i = 0; i < childCount; i++) {
+				list.snoc(childNodes[i].compile());
+			}
+			compiled = list;
+		}
+		return compiled;
+	}
 }
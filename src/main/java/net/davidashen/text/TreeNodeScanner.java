@@ -0,0 +1,329 @@
+package net.davidashen.text;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import net.davidashen.util.List;
+
+/**
+ * Rule set backed by a tree of nodes, as built by both {@link Utf8TexParser}
+ * and {@link ByteScanner}. Every root level subtree is converted
+ * to the list structure when the scanner is created and stored in a table
+ * indexed by character. Neither the table nor the exceptions are modified
+ * afterwards, so an instance can be shared by any number of threads
+ * without synchronization.
+ *
+ * <p>Patterns and exceptions are changed by creating a new scanner with one
+ * of the <code>with</code> methods. The new scanner shares all unchanged
+ * parts of the tree, and their list structures, with this one. Changing
+ * exceptions also shares the compiled patterns, and changing patterns shares
+ * the exception table.</p>
+ *
+ * <p>The other structure is rebuilt on the updating thread if it was in use:
+ * a pattern update recompiles the transition table, in time proportional to
+ * the number of patterns (the character classes are reused when no pattern
+ * letters are added or removed), and an exception update copies the entries
+ * of the exception table, in time proportional to the number of exceptions.
+ * The tree passed to the constructor must not be modified afterwards.</p>
+ */
+final class TreeNodeScanner implements RuleDefinition {
+	final private TreeNode root;
+	final private Map<String, int[]> exceptions;
+	// Exceptions added or removed since the scanner was parsed, or null
+	final private ExceptionEdits exceptionEdits;
+	final private List[] rootTable;
+	final private int firstChar;
+	// Compiled on first use, see getCompiledPatterns()
+	private volatile CompiledPatterns compiledPatterns;
+	private volatile boolean compiled;
+	// Patterns of the scanner this one was updated from, whose classes may be reused, or null
+	private volatile CompiledPatterns previousPatterns;
+	// Built on first use, see getExceptionTable()
+	private volatile ExceptionTable exceptionTable;
+
+	public TreeNodeScanner(TreeNode root, Map<String, int[]> exceptions) {
+		this(root, exceptions, null);
+	}
+
+	private TreeNodeScanner(TreeNode root, Map<String, int[]> exceptions, ExceptionEdits exceptionEdits) {
+		this.root = root;
+		this.exceptions = exceptions;
+		this.exceptionEdits = exceptionEdits;
+
+		Object event = FlightRecorderEvents.beginRuleCompile();
+		int first = Character.MAX_VALUE, last = -1;
+		for (TreeNode child : root.getChildren()) {
+			first = Math.min(first, child.getLastCharacter());
+			last = Math.max(last, child.getLastCharacter());
+		}
+		this.firstChar = first;
+		this.rootTable = new List[Math.max(last - first + 1, 0)];
+		for (TreeNode child : root.getChildren()) {
+			rootTable[child.getLastCharacter() - first] = new List().snoc(child.compile());
+		}
+		FlightRecorderEvents.endRuleCompile(event, "lists", root.getChildren().size());
+	}
+
+	/**
+	 * Create a scanner with the patterns of another one and different
+	 * exceptions.
+	 */
+	private TreeNodeScanner(TreeNodeScanner patterns, ExceptionEdits exceptionEdits) {
+		this.root = patterns.root;
+		this.exceptions = patterns.exceptions;
+		this.exceptionEdits = exceptionEdits;
+		this.rootTable = patterns.rootTable;
+		this.firstChar = patterns.firstChar;
+		this.compiledPatterns = patterns.compiledPatterns;
+		this.compiled = patterns.compiled;
+		this.previousPatterns = patterns.previousPatterns;
+	}
+
+	public int[] getException(String word) {
+		if (exceptionEdits != null) {
+			int[] edited = exceptionEdits.get(word);
+			if (edited != null) {
+				return edited == ExceptionEdits.REMOVED ? null : edited;
+			}
+		}
+		return exceptions.get(word);
+	}
+
+	/**
+	 * Get the pattern tree for a first character. The lists are shared by
+	 * all callers and must not be modified.
+	 *
+	 * @param c the first character of the sequence to match
+	 * @return the tree, or a new empty list if no pattern starts with c
+	 */
+	public List getPatternTree(int c) {
+		int index = (char) c - firstChar;
+		if (index < 0 || index >= rootTable.length || rootTable[index] == null) {
+			// A new list, as a caller could modify a shared one
+			return new List();
+		}
+		return rootTable[index];
+	}
+
+	/**
+	 * Get the patterns compiled into a transition table. They are compiled
+	 * when first needed.
+	 *
+	 * @return the compiled patterns, or null if the tree is too large
+	 */
+	CompiledPatterns getCompiledPatterns() {
+		if (!compiled) {
+			// Compiling twice in a race is harmless, the results are equal
+			Object event = FlightRecorderEvents.beginRuleCompile();
+			CompiledPatterns patterns = CompiledPatterns.compile(root, previousPatterns);
+			FlightRecorderEvents.endRuleCompile(event, "transition table", patterns == null ? 0 : patterns.getStateCount());
+			compiledPatterns = patterns;
+			compiled = true;
+			previousPatterns = null;
+		}
+		return compiledPatterns;
+	}
+
+	/**
+	 * Get the exceptions in a table that looks up slices of char arrays.
+	 * The table is built when first needed.
+	 *
+	 * @return the exception table
+	 */
+	ExceptionTable getExceptionTable() {
+		ExceptionTable table = exceptionTable;
+		if (table == null) {
+			// Building twice in a race is harmless, the results are equal
+			Object event = FlightRecorderEvents.beginRuleCompile();
+			Map<String, int[]> all = new HashMap<String, int[]>();
+			addTo(null, all);
+			table = exceptionTable = new ExceptionTable(all);
+			FlightRecorderEvents.endRuleCompile(event, "exception table", all.size());
+		}
+		return table;
+	}
+
+	/**
+	 * @return true if the transition table and the exception table are built
+	 */
+	boolean isCompiled() {
+		return compiled && exceptionTable != null;
+	}
+
+	/**
+	 * @return the number of patterns
+	 */
+	int getPatternCount() {
+		return root.countPatterns();
+	}
+
+	/**
+	 * @return the number of nodes in the pattern tree
+	 */
+	int getNodeCount() {
+		return root.countNodes();
+	}
+
+	/**
+	 * Estimate the heap used by this rule set. Parts shared with other rule
+	 * sets are included.
+	 *
+	 * @return the estimated number of bytes
+	 */
+	long getEstimatedBytes() {
+		// rootTable holds a list with one element for each child of the root
+		long bytes = root.estimateBytes() + HeapEstimate.array(HeapEstimate.REFERENCE, rootTable.length)
+				+ root.getChildren().size() * (HeapEstimate.object(2, 4) + 3 * HeapEstimate.object(2, 0));
+		bytes += estimateBytes(exceptions);
+		CompiledPatterns patterns = compiledPatterns;
+		if (patterns != null) {
+			bytes += patterns.estimateBytes();
+		}
+		ExceptionTable table = exceptionTable;
+		if (table != null) {
+			bytes += table.estimateBytes();
+		}
+		if (exceptionEdits != null) {
+			bytes += exceptionEdits.estimateBytes();
+		}
+		return bytes;
+	}
+
+	static long estimateBytes(Map<String, int[]> map) {
+		// table with a load factor of 0.75, and one entry per mapping with hash, key, value and next
+		long bytes = HeapEstimate.array(HeapEstimate.REFERENCE, Integer.highestOneBit(map.size() * 4 / 3 + 1) * 2);
+		for (Map.Entry<String, int[]> entry : map.entrySet()) {
+			bytes += HeapEstimate.object(3, 4) + HeapEstimate.string(entry.getKey())
+					+ HeapEstimate.array(4, entry.getValue().length);
+		}
+		return bytes;
+	}
+
+	/**
+	 * @return the number of exceptions
+	 */
+	int getExceptionCount() {
+		if (exceptionEdits == null) {
+			return exceptions.size();
+		}
+		int count = exceptions.size();
+		for (Map.Entry<String, int[]> edit : exceptionEdits.toMap().entrySet()) {
+			boolean existing = exceptions.containsKey(edit.getKey());
+			if (edit.getValue() == ExceptionEdits.REMOVED) {
+				count -= existing ? 1 : 0;
+			} else {
+				count += existing ? 0 : 1;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Add the patterns and exceptions of this scanner to a tree and a map,
+	 * replacing any previous ones for the same letters.
+	 *
+	 * @param targetRoot the tree, or null to add the exceptions only
+	 * @param targetExceptions the map
+	 */
+	void addTo(TreeNode targetRoot, Map<String, int[]> targetExceptions) {
+		if (targetRoot != null) {
+			targetRoot.insertAll(root);
+		}
+		targetExceptions.putAll(exceptions);
+		if (exceptionEdits != null) {
+			exceptionEdits.applyTo(targetExceptions);
+		}
+	}
+
+	/**
+	 * Create a scanner with patterns added. A pattern that matches the same
+	 * characters as an existing one replaces it.
+	 *
+	 * @param patterns the patterns, e.g. "a1b"
+	 * @return the new scanner
+	 */
+	TreeNodeScanner withPatterns(String... patterns) {
+		TreeNode newRoot = root;
+		for (String pattern : patterns) {
+			TreeNode node = TreeNode.createFromPattern(pattern);
+			if (node.getSegment().length() > 0) {
+				newRoot = newRoot.withChild(node.getSegment(), node.getHyphenation());
+			}
+		}
+		return withRoot(newRoot);
+	}
+
+	/**
+	 * Create a scanner with patterns removed. Any digits in the patterns are
+	 * ignored, i.e. "a1b" removes the pattern for "ab" whatever its values.
+	 *
+	 * @param patterns the patterns
+	 * @return the new scanner
+	 */
+	TreeNodeScanner withoutPatterns(String... patterns) {
+		TreeNode newRoot = root;
+		for (String pattern : patterns) {
+			newRoot = newRoot.withoutChild(TreeNode.createFromPattern(pattern).getSegment());
+		}
+		return withRoot(newRoot);
+	}
+
+	private TreeNodeScanner withRoot(TreeNode newRoot) {
+		TreeNodeScanner scanner = new TreeNodeScanner(newRoot, exceptions, exceptionEdits);
+		scanner.exceptionTable = exceptionTable;
+		CompiledPatterns patterns = compiledPatterns;
+		scanner.previousPatterns = patterns != null ? patterns : previousPatterns;
+		if (compiled) {
+			// Compile on the updating thread rather than in the next call to hyphenate
+			scanner.getCompiledPatterns();
+		}
+		return scanner;
+	}
+
+	/**
+	 * Create a scanner with exceptions added.
+	 *
+	 * @param words the words, with hyphens at the allowed positions, e.g.
+	 *            "as-so-ciate". Characters other than letters and hyphens
+	 *            are ignored, and the word is lowercased in the default
+	 *            locale, like the words looked up by the hyphenator.
+	 * @return the new scanner
+	 * @throws IllegalArgumentException if a word has no letters or starts with a hyphen
+	 */
+	TreeNodeScanner withExceptions(String... words) {
+		Map<String, int[]> edits = new HashMap<String, int[]>();
+		for (String word : words) {
+			String letters = Utf8TexParser.unhyphenWord(word);
+			if (letters.isEmpty() || word.charAt(0) == '-') {
+				throw new IllegalArgumentException("Not a hyphenated word: \"" + word + "\"");
+			}
+			edits.put(letters.toLowerCase(), Utf8TexParser.extractExceptionHyphenation(word));
+		}
+		return withExceptionEdits(edits);
+	}
+
+	/**
+	 * Create a scanner with exceptions removed.
+	 *
+	 * @param words the words, with or without hyphens, in any case
+	 * @return the new scanner
+	 */
+	TreeNodeScanner withoutExceptions(String... words) {
+		Map<String, int[]> edits = new HashMap<String, int[]>();
+		for (String word : words) {
+			edits.put(Utf8TexParser.unhyphenWord(word).toLowerCase(), ExceptionEdits.REMOVED);
+		}
+		return withExceptionEdits(edits);
+	}
+
+	private TreeNodeScanner withExceptionEdits(Map<String, int[]> edits) {
+		TreeNodeScanner scanner = new TreeNodeScanner(this, ExceptionEdits.with(exceptionEdits, edits));
+		ExceptionTable table = exceptionTable;
+		if (table != null) {
+			Object event = FlightRecorderEvents.beginRuleCompile();
+			scanner.exceptionTable = table.with(edits);
+			FlightRecorderEvents.endRuleCompile(event, "exception table", edits.size());
+		}
+		return scanner;
+	}
+}
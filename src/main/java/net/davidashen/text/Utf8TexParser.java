@@ -3,26 +3,37 @@ package net.davidashen.text;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
-import java.util.Hashtable;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.Map;
-
-import net.davidashen.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Parses .tex files into sets of hyphenation patterns and exceptions.
  */
 public class Utf8TexParser {
+	private static final Logger log = Logger.getLogger(Utf8TexParser.class.getCanonicalName());
 
 	public RuleDefinition parse(String string) throws TexParserException {
 		return this.parse(new StringReader(string));
 	}
 
 	public RuleDefinition parse(Reader reader) throws TexParserException {
-		try {
-			TreeNode ruleRoot = TreeNode.createRoot();
-			Map<String, int[]> exceptions = new Hashtable<String, int[]>();
+		TreeNode ruleRoot = TreeNode.createRoot();
+		Map<String, int[]> exceptions = new HashMap<String, int[]>();
+		parse(reader, ruleRoot, exceptions);
+		return new TreeNodeScanner(ruleRoot, exceptions);
+	}
 
+	/**
+	 * Parses patterns into a tree and exceptions into a map. Patterns and
+	 * exceptions replace any previous ones for the same letters. Duplicate
+	 * patterns are logged once for the whole table.
+	 */
+	void parse(Reader reader, TreeNode ruleRoot, Map<String, int[]> exceptions) throws TexParserException {
+		LoadSummary summary = new LoadSummary();
+		try {
 			int c = reader.read();
 			while (c > -1) {
 				char ch = (char) c;
@@ -34,7 +45,9 @@ public class Utf8TexParser {
 
 					if (groupName.equals("patterns")) {
 						for (String p : readWords(groupName, reader)) {
-							ruleRoot.createChildFromPattern(p);
+							TreeNode node = TreeNode.createFromPattern(p);
+							summary.duplicate(ruleRoot.insert(node.getSegment(), node.getHyphenation()),
+									node.getSegment(), node.getHyphenation());
 						}
 					} else if (groupName.equals("hyphenation")) {
 						for (String e : readWords(groupName, reader)) {
@@ -49,12 +62,15 @@ public class Utf8TexParser {
 				}
 				c = reader.read();
 			}
-
-			return new TreeNodeScanner(ruleRoot, exceptions);
 		} catch (IOException exception) {
 			throw new TexParserException(
 					"IOException exception thrown while parsing.", exception);
 		}
+		if (log.isLoggable(Level.WARNING)) {
+			for (String message : summary.getMessages()) {
+				log.warning(message);
+			}
+		}
 	}
 
 	private static String parseGroupName(Reader reader) 
@@ -126,7 +142,7 @@ public class Utf8TexParser {
 		return list;
 	}
 
-	private String unhyphenWord(String exceptedWord) {
+	static String unhyphenWord(String exceptedWord) {
 		final StringBuffer buffer = new StringBuffer();
 
 		for (int i = 0; i < exceptedWord.length(); i++) {
@@ -139,16 +155,23 @@ public class Utf8TexParser {
 		return buffer.toString();
 	}
 
-	private int[] extractExceptionHyphenation(String exceptedWord) {
-		int[] tmpHyphenations = new int[exceptedWord.length()];
+	/**
+	 * Gets the hyphenation of an exception. Only letters are counted, like
+	 * in {@link #unhyphenWord(String)}, and hyphens before the first letter
+	 * are ignored.
+	 */
+	static int[] extractExceptionHyphenation(String exceptedWord) {
+		int[] tmpHyphenations = new int[exceptedWord.length() + 1];
 		int characterCount = 0;
 
 		// Collect hyphenation info
 		for (int i = 0; i < exceptedWord.length(); i++) {
 			char ch = exceptedWord.charAt(i);
 			if (ch == '-') {
-				tmpHyphenations[characterCount-1] = 1;
-			} else {
+				if (characterCount > 0) {
+					tmpHyphenations[characterCount-1] = 1;
+				}
+			} else if (Character.isLetter(ch)) {
 				characterCount++;
 			}
 		}
@@ -198,38 +221,4 @@ public class Utf8TexParser {
 		}
 	}
 
-	private static class TreeNodeScanner implements RuleDefinition {
-		final private TreeNode rulesRoot;
-		final private Map<String, int[]> exceptions;
-		final private Map<Character, net.davidashen.util.List> listCache = new Hashtable<Character, List>();
-
-		public TreeNodeScanner(TreeNode root, Map<String, int[]> exceptions) {
-			this.rulesRoot = root;
-			this.exceptions = exceptions;
-		}
-
-		public int[] getException(String word) {
-			return exceptions.get(word);
-		}
-
-		public List getPatternTree(int c) {
-			char ch = (char) c;
-
-			if (listCache.containsKey(ch)) {
-				return listCache.get(ch);
-			} else {
-				// List creation is relatively heavy, so let's only do it once
-				// per character.
-				net.davidashen.util.List list = new net.davidashen.util.List();
-
-				if (rulesRoot.hasChild(ch)) {
-					list.snoc(rulesRoot.getChild(ch).toList());
-				}
-
-				listCache.put(ch, list);
-				return list;
-			}
-		}
-	}
-
 }
@@ -0,0 +1,168 @@
+package net.davidashen.text;
+
+/**
+ * <p>Limits on the words a {@link Hyphenator} hyphenates, which bound the
+ * time and memory taken by text such as URLs, hashes or base64 data. A word
+ * that is skipped is copied unchanged. Limits are immutable, and are set up
+ * starting from {@link #NONE}:</p>
+ *
+ * <pre>
+ * hyphenator.setWordLimits(WordLimits.NONE
+ *         .withMaxWordLength(60)
+ *         .withWorkBudget(100000)
+ *         .withVowels("aeiouyäöü")
+ *         .withMixedCaseSkipped(true));
+ * </pre>
+ *
+ * <p>Skipped words are reported to the metrics listener, see
+ * {@link MetricsListener#skipped(SkipReason, int)}.</p>
+ */
+public final class WordLimits {
+	/**
+	 * No limits, every word is hyphenated.
+	 */
+	public static final WordLimits NONE = new WordLimits(Integer.MAX_VALUE, Integer.MAX_VALUE, null, false);
+
+	/**
+	 * Why a word was not hyphenated.
+	 */
+	public enum SkipReason {
+		/**
+		 * The word is longer than the maximum word length.
+		 */
+		LENGTH,
+		/**
+		 * The word is longer than the rest of the work budget of the call.
+		 */
+		BUDGET,
+		/**
+		 * The word has no vowels.
+		 */
+		NO_VOWEL,
+		/**
+		 * The word has an uppercase letter after a lowercase letter.
+		 */
+		MIXED_CASE
+	}
+
+	private final int maxWordLength;
+	private final int workBudget;
+	private final String vowels;
+	private final boolean mixedCaseSkipped;
+
+	private WordLimits(int maxWordLength, int workBudget, String vowels, boolean mixedCaseSkipped) {
+		this.maxWordLength = maxWordLength;
+		this.workBudget = workBudget;
+		this.vowels = vowels;
+		this.mixedCaseSkipped = mixedCaseSkipped;
+	}
+
+	/**
+	 * @param length the maximum number of letters of a word to hyphenate
+	 * @return new limits with the maximum word length changed
+	 */
+	public WordLimits withMaxWordLength(int length) {
+		if (length < 0) {
+			throw new IllegalArgumentException("Negative length: " + length);
+		}
+		return new WordLimits(length, workBudget, vowels, mixedCaseSkipped);
+	}
+
+	/**
+	 * Limits the work of each call to hyphenate. Hyphenating a word counts as
+	 * its number of letters, and a word that would exceed what is left of the
+	 * budget is skipped.
+	 *
+	 * @param letters the number of letters to hyphenate in each call
+	 * @return new limits with the work budget changed
+	 */
+	public WordLimits withWorkBudget(int letters) {
+		if (letters < 0) {
+			throw new IllegalArgumentException("Negative budget: " + letters);
+		}
+		return new WordLimits(maxWordLength, letters, vowels, mixedCaseSkipped);
+	}
+
+	/**
+	 * Skips words with no vowels. Which letters are vowels depends on the
+	 * language of the table.
+	 *
+	 * @param vowels the lowercase vowels, e.g. "aeiouy", or null to hyphenate
+	 *            words with no vowels
+	 * @return new limits with the vowels changed
+	 */
+	public WordLimits withVowels(String vowels) {
+		return new WordLimits(maxWordLength, workBudget, vowels, mixedCaseSkipped);
+	}
+
+	/**
+	 * Skips words with an uppercase letter after a lowercase letter, such as
+	 * "aGVsbG8" or "iPhone". Words in uppercase or with an uppercase first
+	 * letter are hyphenated.
+	 *
+	 * @param skipped true to skip words in mixed case
+	 * @return new limits with the mixed case heuristic changed
+	 */
+	public WordLimits withMixedCaseSkipped(boolean skipped) {
+		return new WordLimits(maxWordLength, workBudget, vowels, skipped);
+	}
+
+	public int getMaxWordLength() {
+		return maxWordLength;
+	}
+
+	public int getWorkBudget() {
+		return workBudget;
+	}
+
+	public String getVowels() {
+		return vowels;
+	}
+
+	public boolean isMixedCaseSkipped() {
+		return mixedCaseSkipped;
+	}
+
+	/**
+	 * Checks a word against the limits.
+	 *
+	 * @param chars characters containing the word
+	 * @param offset the start of the word
+	 * @param length the length of the word
+	 * @param budget what is left of the work budget
+	 * @return why the word must be skipped, or null if it can be hyphenated
+	 */
+	SkipReason check(char[] chars, int offset, int length, int budget) {
+		if (length > maxWordLength) {
+			return SkipReason.LENGTH;
+		} else if (length > budget) {
+			return SkipReason.BUDGET;
+		} else if (vowels != null && !hasVowel(chars, offset, length)) {
+			return SkipReason.NO_VOWEL;
+		} else if (mixedCaseSkipped && isMixedCase(chars, offset, length)) {
+			return SkipReason.MIXED_CASE;
+		}
+		return null;
+	}
+
+	private boolean hasVowel(char[] chars, int offset, int length) {
+		for (int i = offset; i < offset + length; i++) {
+			if (vowels.indexOf(CharTable.toLowerCase(chars[i])) >= 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isMixedCase(char[] chars, int offset, int length) {
+		boolean lowercaseSeen = false;
+		for (int i = offset; i < offset + length; i++) {
+			if (Character.isLowerCase(chars[i])) {
+				lowercaseSeen = true;
+			} else if (lowercaseSeen && (Character.isUpperCase(chars[i]) || Character.isTitleCase(chars[i]))) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
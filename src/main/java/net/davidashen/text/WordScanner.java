@@ -0,0 +1,47 @@
+package net.davidashen.text;
+
+/**
+ * Finds the ends of words and of the text between them. This version checks
+ * one character at a time. The multi-release jar contains a version for
+ * Java 17 and later, in src/main/java17, which checks many characters at
+ * once if the Vector API is available.
+ *
+ * <p>The phrase must end with the zero guard, where both scans stop.</p>
+ */
+final class WordScanner {
+
+	private WordScanner() { }
+
+	/**
+	 * Skips characters that are copied unchanged between words, i.e. that
+	 * are neither letters, the zero guard nor hyphens.
+	 *
+	 * @param chars the phrase
+	 * @param from the index to start at
+	 * @return the index of the first letter, zero or hyphen
+	 */
+	static int skipNonLetters(char[] chars, int from) {
+		int i = from;
+		char c;
+		while (!CharTable.isLetter(c = chars[i]) && c != 0
+				&& c != Hyphenator.HYPHEN_MINUS && c != Hyphenator.HYPHEN) {
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * Skips letters.
+	 *
+	 * @param chars the phrase
+	 * @param from the index to start at
+	 * @return the index of the first character that is not a letter
+	 */
+	static int skipLetters(char[] chars, int from) {
+		int i = from;
+		while (CharTable.isLetter(chars[i])) {
+			i++;
+		}
+		return i;
+	}
+}
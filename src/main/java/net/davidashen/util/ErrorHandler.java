@@ -21,6 +21,26 @@ public interface ErrorHandler {
   @param s explanation
   @param e exception */
   public void exception(String s,Exception e);
+ /** tells whether debug information is reported; callers can skip building messages otherwise
+  @return true by default */
+  default boolean isDebugEnabled() {
+    return true;
+  }
+ /** tells whether informational messages are reported
+  @return true by default */
+  default boolean isInfoEnabled() {
+    return true;
+  }
+ /** tells whether warnings are reported
+  @return true by default */
+  default boolean isWarningEnabled() {
+    return true;
+  }
+ /** tells whether errors are reported
+  @return true by default */
+  default boolean isErrorEnabled() {
+    return true;
+  }
 }
 
 /*
@@ -29,5 +29,21 @@ public final class LoggingErrorHandler implements ErrorHandler {
 	public void exception(String s, Exception e) {
 		log.log(Level.SEVERE, s, e);
 	}
+
+	public boolean isDebugEnabled() {
+		return log.isLoggable(Level.FINE);
+	}
+
+	public boolean isInfoEnabled() {
+		return log.isLoggable(Level.INFO);
+	}
+
+	public boolean isWarningEnabled() {
+		return log.isLoggable(Level.WARNING);
+	}
+
+	public boolean isErrorEnabled() {
+		return log.isLoggable(Level.SEVERE);
+	}
 	  
   }
\ No newline at end of file
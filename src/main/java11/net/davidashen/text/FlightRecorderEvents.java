@@ -0,0 +1,139 @@
+package net.davidashen.text;
+
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/**
+ * Emits Java Flight Recorder events on Java 11 and later. Nothing is
+ * allocated unless a recording is running.
+ *
+ * <p>Events are created by a begin method, which returns null if the
+ * event is not recorded, and passed to the matching end method.</p>
+ */
+final class FlightRecorderEvents {
+	private static volatile boolean recording = false;
+
+	static {
+		try {
+			FlightRecorder.addListener(new FlightRecorderListener() {
+				@Override
+				public void recordingStateChanged(Recording changed) {
+					recording = isAnyRecordingRunning();
+				}
+			});
+			recording = isAnyRecordingRunning();
+		} catch (RuntimeException | LinkageError e) {
+			// No flight recorder in this runtime
+		}
+	}
+
+	private FlightRecorderEvents() { }
+
+	private static boolean isAnyRecordingRunning() {
+		// getFlightRecorder() would start the flight recorder
+		if (!FlightRecorder.isInitialized()) {
+			return false;
+		}
+		for (Recording r : FlightRecorder.getFlightRecorder().getRecordings()) {
+			if (r.getState() == RecordingState.RUNNING) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return true if any events may be recorded
+	 */
+	static boolean isRecording() {
+		return recording;
+	}
+
+	static Object beginTableLoad() {
+		if (!recording) {
+			return null;
+		}
+		TableLoadEvent event = new TableLoadEvent();
+		event.begin();
+		return event;
+	}
+
+	/**
+	 * @param event the event from {@link #beginTableLoad()}
+	 * @param source the file name or other description of the table, or null
+	 * @param format the format of the table
+	 * @param rules the loaded rule set
+	 */
+	static void endTableLoad(Object event, String source, String format, RuleDefinition rules) {
+		if (event == null) {
+			return;
+		}
+		TableLoadEvent e = (TableLoadEvent) event;
+		e.end();
+		if (e.shouldCommit()) {
+			e.source = source;
+			e.format = format;
+			if (rules instanceof TreeNodeScanner) {
+				e.patterns = ((TreeNodeScanner) rules).getPatternCount();
+				e.exceptions = ((TreeNodeScanner) rules).getExceptionCount();
+			}
+			e.commit();
+		}
+	}
+
+	static Object beginRuleCompile() {
+		if (!recording) {
+			return null;
+		}
+		RuleCompileEvent event = new RuleCompileEvent();
+		event.begin();
+		return event;
+	}
+
+	/**
+	 * @param event the event from {@link #beginRuleCompile()}
+	 * @param structure the structure built, e.g. "lists"
+	 * @param size the number of subtrees, states or exceptions in the structure
+	 */
+	static void endRuleCompile(Object event, String structure, int size) {
+		if (event == null) {
+			return;
+		}
+		RuleCompileEvent e = (RuleCompileEvent) event;
+		e.end();
+		if (e.shouldCommit()) {
+			e.structure = structure;
+			e.size = size;
+			e.commit();
+		}
+	}
+
+	static Object beginHyphenate() {
+		if (!recording) {
+			return null;
+		}
+		HyphenateEvent event = new HyphenateEvent();
+		event.begin();
+		return event;
+	}
+
+	/**
+	 * @param event the event from {@link #beginHyphenate()}
+	 * @param length the length of the phrase
+	 * @param words the number of words in the phrase
+	 */
+	static void endHyphenate(Object event, int length, int words) {
+		if (event == null) {
+			return;
+		}
+		HyphenateEvent e = (HyphenateEvent) event;
+		e.end();
+		if (e.shouldCommit()) {
+			e.length = length;
+			e.words = words;
+			e.commit();
+		}
+	}
+}
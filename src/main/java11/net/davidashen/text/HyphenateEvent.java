@@ -0,0 +1,22 @@
+package net.davidashen.text;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+@Name("net.davidashen.text.Hyphenate")
+@Label("Slow Hyphenation")
+@Category("Hyphenation")
+@Description("A call to hyphenate that took longer than the threshold")
+@Threshold("1 ms")
+class HyphenateEvent extends Event {
+	@Label("Length")
+	@Description("Number of characters in the phrase")
+	int length;
+
+	@Label("Words")
+	int words;
+}
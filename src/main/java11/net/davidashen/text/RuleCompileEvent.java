@@ -0,0 +1,22 @@
+package net.davidashen.text;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("net.davidashen.text.RuleCompile")
+@Label("Hyphenation Rule Compile")
+@Category("Hyphenation")
+@Description("Conversion of the patterns or exceptions of a rule set to a structure used for hyphenation, "
+		+ "on loading or updating the rule set or when the structure is first needed")
+class RuleCompileEvent extends Event {
+	@Label("Structure")
+	@Description("The structure built: lists, transition table or exception table")
+	String structure;
+
+	@Label("Size")
+	@Description("Number of subtrees converted to lists, states of the transition table, or exceptions")
+	int size;
+}
@@ -0,0 +1,25 @@
+package net.davidashen.text;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("net.davidashen.text.TableLoad")
+@Label("Hyphenation Table Load")
+@Category("Hyphenation")
+@Description("A hyphenation table read and compiled into a rule set")
+class TableLoadEvent extends Event {
+	@Label("Source")
+	String source;
+
+	@Label("Format")
+	String format;
+
+	@Label("Patterns")
+	int patterns;
+
+	@Label("Exceptions")
+	int exceptions;
+}
@@ -0,0 +1,60 @@
+package net.davidashen.text;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Skips ASCII letters or ASCII characters that are not letters, a vector
+ * at a time. Each scan stops at the first vector containing a character it
+ * cannot decide, i.e. any character of U+0080 and above, or at the last
+ * complete vector of the array. {@link WordScanner} continues from there.
+ */
+final class VectorWordScanner {
+	private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+
+	private VectorWordScanner() { }
+
+	/**
+	 * @param chars the phrase
+	 * @param from the index to start at
+	 * @return an index at or before the first letter, zero or hyphen
+	 */
+	static int skipNonLetters(char[] chars, int from) {
+		int i = from;
+		for (int last = chars.length - SPECIES.length(); i <= last; i += SPECIES.length()) {
+			ShortVector v = ShortVector.fromCharArray(SPECIES, chars, i);
+			VectorMask<Short> stop = asciiLetters(v)
+					.or(v.and((short) 0xff80).compare(VectorOperators.NE, (short) 0))
+					.or(v.compare(VectorOperators.EQ, (short) 0))
+					.or(v.compare(VectorOperators.EQ, (short) Hyphenator.HYPHEN_MINUS));
+			if (stop.anyTrue()) {
+				return i + stop.firstTrue();
+			}
+		}
+		return i;
+	}
+
+	/**
+	 * @param chars the phrase
+	 * @param from the index to start at
+	 * @return an index at or before the first character that is not a letter
+	 */
+	static int skipLetters(char[] chars, int from) {
+		int i = from;
+		for (int last = chars.length - SPECIES.length(); i <= last; i += SPECIES.length()) {
+			VectorMask<Short> stop = asciiLetters(ShortVector.fromCharArray(SPECIES, chars, i)).not();
+			if (stop.anyTrue()) {
+				return i + stop.firstTrue();
+			}
+		}
+		return i;
+	}
+
+	private static VectorMask<Short> asciiLetters(ShortVector v) {
+		// Characters of U+8000 and above are negative, and none are in the range
+		ShortVector folded = v.or((short) 0x20);
+		return folded.compare(VectorOperators.GE, (short) 'a').and(folded.compare(VectorOperators.LE, (short) 'z'));
+	}
+}
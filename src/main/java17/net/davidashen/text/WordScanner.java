@@ -0,0 +1,51 @@
+package net.davidashen.text;
+
+/**
+ * Finds the ends of words and of the text between them on Java 17 and later.
+ * If the incubating Vector API is available, i.e. the JVM was started with
+ * <code>--add-modules jdk.incubator.vector</code>, ASCII text is checked a
+ * vector at a time by {@link VectorWordScanner}, and the scan is completed one
+ * character at a time from where it stopped. Otherwise this is the same as
+ * the Java 8 version.
+ *
+ * <p>The phrase must end with the zero guard, where both scans stop.</p>
+ */
+final class WordScanner {
+	// VectorWordScanner must not be loaded unless the module is present
+	private static final boolean VECTORS = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+	private WordScanner() { }
+
+	/**
+	 * Skips characters that are copied unchanged between words, i.e. that
+	 * are neither letters, the zero guard nor hyphens.
+	 *
+	 * @param chars the phrase
+	 * @param from the index to start at
+	 * @return the index of the first letter, zero or hyphen
+	 */
+	static int skipNonLetters(char[] chars, int from) {
+		int i = VECTORS ? VectorWordScanner.skipNonLetters(chars, from) : from;
+		char c;
+		while (!CharTable.isLetter(c = chars[i]) && c != 0
+				&& c != Hyphenator.HYPHEN_MINUS && c != Hyphenator.HYPHEN) {
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * Skips letters.
+	 *
+	 * @param chars the phrase
+	 * @param from the index to start at
+	 * @return the index of the first character that is not a letter
+	 */
+	static int skipLetters(char[] chars, int from) {
+		int i = VECTORS ? VectorWordScanner.skipLetters(chars, from) : from;
+		while (CharTable.isLetter(chars[i])) {
+			i++;
+		}
+		return i;
+	}
+}
@@ -0,0 +1,147 @@
+package net.davidashen.text;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.LineNumberReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Fails if hyphenating the sherlock text allocates more bytes per word than
+ * the budget, where a word is a run of letters. hyphenateWord and
+ * hyphenationMask must not allocate at all. The budget leaves room for
+ * differences between JVMs, but not for an extra object per word. Lower it
+ * when the hot path gets leaner.
+ */
+@SuppressWarnings("javadoc")
+public class AllocationBudgetTest {
+	private static final int WARMUP_ROUNDS = 20;
+	private static final long STRING_BYTES_PER_WORD = 300;
+
+	private static String[] lines;
+	private static int words;
+	// The words of each line, as offsets and lengths in its characters
+	private static char[][] chars;
+	private static int[][] offsets;
+	private static int[][] lengths;
+
+	@BeforeClass
+	public static void readText() throws IOException {
+		ArrayList<String> list = new ArrayList<String>();
+		LineNumberReader reader = new LineNumberReader(new InputStreamReader(
+				AllocationBudgetTest.class.getResourceAsStream("/sherlock.txt"), Charset.forName("UTF-8")));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				list.add(line);
+			}
+		} finally {
+			reader.close();
+		}
+		lines = list.toArray(new String[list.size()]);
+
+		chars = new char[lines.length][];
+		offsets = new int[lines.length][];
+		lengths = new int[lines.length][];
+		for (int n = 0; n < lines.length; n++) {
+			chars[n] = lines[n].toCharArray();
+			Matcher matcher = Pattern.compile("\\p{L}+").matcher(lines[n]);
+			ArrayList<int[]> lineWords = new ArrayList<int[]>();
+			while (matcher.find()) {
+				lineWords.add(new int[] {matcher.start(), matcher.end() - matcher.start()});
+			}
+			words += lineWords.size();
+			offsets[n] = new int[lineWords.size()];
+			lengths[n] = new int[lineWords.size()];
+			for (int i = 0; i < lineWords.size(); i++) {
+				offsets[n][i] = lineWords.get(i)[0];
+				lengths[n][i] = lineWords.get(i)[1];
+			}
+		}
+	}
+
+	@Test
+	public void hyphenateStringStaysWithinBudget() throws IOException {
+		final Hyphenator hyphenator = loadHyphenator();
+		long perWord = bytesAllocated(new Runnable() {
+			public void run() {
+				for (String line : lines) {
+					hyphenator.hyphenate(line);
+				}
+			}
+		}) / words;
+		assertTrue("hyphenate(String) allocated " + perWord + " bytes per word", perWord <= STRING_BYTES_PER_WORD);
+	}
+
+	@Test
+	public void hyphenateWordStaysWithinBudget() throws IOException {
+		final Hyphenator hyphenator = loadHyphenator();
+		final int[] breaks = new int[1000];
+		long bytes = bytesAllocated(new Runnable() {
+			public void run() {
+				for (int n = 0; n < chars.length; n++) {
+					for (int i = 0; i < offsets[n].length; i++) {
+						hyphenator.hyphenateWord(chars[n], offsets[n][i], lengths[n][i], 2, 3, breaks);
+					}
+				}
+			}
+		});
+		assertEquals("hyphenateWord allocated", 0, bytes);
+	}
+
+	@Test
+	public void hyphenationMaskStaysWithinBudget() throws IOException {
+		final Hyphenator hyphenator = loadHyphenator();
+		final long[] masks = new long[1];
+		long bytes = bytesAllocated(new Runnable() {
+			public void run() {
+				for (int n = 0; n < chars.length; n++) {
+					for (int i = 0; i < offsets[n].length; i++) {
+						if (lengths[n][i] <= 64) {
+							masks[0] ^= hyphenator.hyphenationMask(chars[n], offsets[n][i], lengths[n][i], 2, 3);
+						}
+					}
+				}
+			}
+		});
+		assertEquals("hyphenationMask allocated", 0, bytes);
+	}
+
+	private static Hyphenator loadHyphenator() throws IOException {
+		Hyphenator hyphenator = new Hyphenator();
+		InputStream in = AllocationBudgetTest.class.getResourceAsStream("/ushyph.tex");
+		try {
+			hyphenator.loadTable(in);
+		} finally {
+			in.close();
+		}
+		return hyphenator;
+	}
+
+	private static long bytesAllocated(Runnable run) {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+		assumeTrue(threads.isThreadAllocatedMemorySupported());
+		threads.setThreadAllocatedMemoryEnabled(true);
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			run.run();
+		}
+		long id = Thread.currentThread().getId();
+		long before = threads.getThreadAllocatedBytes(id);
+		run.run();
+		long after = threads.getThreadAllocatedBytes(id);
+		return after - before;
+	}
+}
@@ -0,0 +1,62 @@
+package net.davidashen.text;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class BatchHyphenatorTest {
+
+	@Test
+	public void hyphenatesWithOneThread() throws IOException {
+		assertHyphenatesSherlock(new BatchHyphenator(loadHyphenator(), 1, 1, 1));
+	}
+
+	@Test
+	public void keepsOrderWithSeveralThreads() throws IOException {
+		assertHyphenatesSherlock(new BatchHyphenator(loadHyphenator(), 1, 1, 4, 7));
+	}
+
+	@Test
+	public void usesHyphenMin() throws IOException {
+		Hyphenator hyphenator = loadHyphenator();
+		StringWriter out = new StringWriter();
+		new BatchHyphenator(hyphenator, 2, 3, 2, 1).hyphenate(
+				new BufferedReader(new StringReader("hyphenation\nrepresentation")), out);
+
+		String separator = System.lineSeparator();
+		assertEquals(hyphenator.hyphenate("hyphenation", 2, 3) + separator
+				+ hyphenator.hyphenate("representation", 2, 3) + separator, out.toString());
+	}
+
+	private void assertHyphenatesSherlock(BatchHyphenator batch) throws IOException {
+		Charset utf8 = Charset.forName("UTF-8");
+		StringWriter out = new StringWriter();
+		batch.hyphenate(new BufferedReader(new InputStreamReader(
+				this.getClass().getResourceAsStream("/sherlock.txt"), utf8)), out);
+
+		BufferedReader expected = new BufferedReader(new InputStreamReader(
+				this.getClass().getResourceAsStream("/sherlock-expected.txt"), utf8));
+		BufferedReader actual = new BufferedReader(new StringReader(out.toString()));
+		String expectedLine;
+		int lineNumber = 1;
+		while ((expectedLine = expected.readLine()) != null) {
+			assertEquals("Line #" + lineNumber++, expectedLine, actual.readLine());
+		}
+		assertEquals(null, actual.readLine());
+		expected.close();
+	}
+
+	private Hyphenator loadHyphenator() throws IOException {
+		Hyphenator hyphenator = new Hyphenator();
+		hyphenator.loadTable(this.getClass().getResourceAsStream("/ushyph.tex"));
+		return hyphenator;
+	}
+}
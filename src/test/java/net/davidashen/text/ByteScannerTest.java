@@ -0,0 +1,140 @@
+package net.davidashen.text;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import net.davidashen.util.ErrorHandler;
+import net.davidashen.util.LoggingErrorHandler;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class ByteScannerTest {
+
+	@Test
+	public void producesSameTreesAsUtf8Parser() throws Exception {
+		final String table = "\\patterns{\nbaz2\nb1a1r\n.b4\nw2at\n}\n";
+		RuleDefinition legacy = scan(table);
+		RuleDefinition utf8 = new Utf8TexParser().parse(table);
+
+		for (char c : new char[]{'b', 'w', '.', 'a'}) {
+			assertEquals(utf8.getPatternTree(c).describe(), legacy.getPatternTree(c).describe());
+		}
+	}
+
+	@Test
+	public void laterPatternReplacesEarlier() throws Exception {
+		RuleDefinition result = scan("\\patterns{f1oo 1f f2oo}");
+
+		assertEquals("((f [1, 0] (o [0, 0, 0] (o [0, 2, 0, 0]))))", result.getPatternTree('f').describe());
+	}
+
+	@Test
+	public void decodesEscapesAndAccents() throws Exception {
+		RuleDefinition result = scan("\\patterns{^^e41b \\\"o1c \\ss1d}");
+
+		assertEquals("((\u00e4 [0, 0] (b [0, 1, 0])))", result.getPatternTree('\u00e4').describe());
+		assertEquals("((\u00f6 [0, 0] (c [0, 1, 0])))", result.getPatternTree('\u00f6').describe());
+		assertEquals("((\u00df [0, 0] (d [0, 1, 0])))", result.getPatternTree('\u00df').describe());
+	}
+
+	@Test
+	public void readsExceptions() throws Exception {
+		RuleDefinition result = scan("\\hyphenation{as-so-ciate}");
+
+		assertArrayEquals(new int[]{0,1,0,1,0,0,0,0,0,0,0}, result.getException("associate"));
+		assertNull(result.getException("associated"));
+	}
+
+	@Test
+	public void readsInputInBlocks() throws Exception {
+		final byte[] table = "\\patterns{b1a \\\"o1c}".getBytes("ISO-8859-1");
+		InputStream in = new ByteArrayInputStream(table) {
+			@Override
+			public synchronized int read() {
+				throw new AssertionError("Reading a single byte");
+			}
+		};
+		RuleDefinition result = scan(in);
+
+		assertEquals("((b [0, 0] (a [0, 1, 0])))", result.getPatternTree('b').describe());
+		assertEquals("((\u00f6 [0, 0] (c [0, 1, 0])))", result.getPatternTree('\u00f6').describe());
+	}
+
+	private static int[] identity() {
+		int[] codelist = new int[256];
+		for (int i = 0; i != 256; ++i) {
+			codelist[i] = i;
+		}
+		return codelist;
+	}
+
+	@Test
+	public void reportsProblemsOncePerTable() throws Exception {
+		RecordingErrorHandler eh = new RecordingErrorHandler(true);
+		new ByteScanner(eh).scan(latin1("\\patterns{f1oo f2oo\nf3oo}\n\\message\n\\global\n\\message"),
+				identity(), TreeNode.createRoot(), new HashMap<String, int[]>());
+
+		assertEquals(eh.warnings.toString(), 2, eh.warnings.size());
+		assertEquals("2 duplicate patterns replaced by later ones, e.g. 'f1oo' by 'f2oo'.", eh.warnings.get(0));
+		assertEquals("Skipped unknown commands: \\message (2 times), \\global.", eh.warnings.get(1));
+	}
+
+	@Test
+	public void skipsWarningsWhenDisabled() throws Exception {
+		RecordingErrorHandler eh = new RecordingErrorHandler(false);
+		new ByteScanner(eh).scan(latin1("\\patterns{f1oo f2oo}\n\\message"),
+				identity(), TreeNode.createRoot(), new HashMap<String, int[]>());
+
+		assertEquals(0, eh.warnings.size());
+	}
+
+	private static InputStream latin1(String table) {
+		return new ByteArrayInputStream(table.getBytes(java.nio.charset.Charset.forName("ISO-8859-1")));
+	}
+
+	private static RuleDefinition scan(String table) {
+		return scan(new ByteArrayInputStream(table.getBytes(java.nio.charset.Charset.forName("ISO-8859-1"))));
+	}
+
+	private static RuleDefinition scan(InputStream in) {
+		TreeNode root = TreeNode.createRoot();
+		Map<String, int[]> exceptions = new HashMap<String, int[]>();
+		new ByteScanner(new LoggingErrorHandler(Logger.getLogger(ByteScannerTest.class.getCanonicalName()))).scan(in, identity(), root, exceptions);
+		return new TreeNodeScanner(root, exceptions);
+	}
+
+	private static class RecordingErrorHandler implements ErrorHandler {
+		private final boolean warningEnabled;
+		private final List<String> warnings = new ArrayList<String>();
+
+		RecordingErrorHandler(boolean warningEnabled) {
+			this.warningEnabled = warningEnabled;
+		}
+
+		public void debug(String domain, String message) { }
+
+		public void info(String s) { }
+
+		public void warning(String s) {
+			warnings.add(s);
+		}
+
+		public void error(String s) { }
+
+		public void exception(String s, Exception e) { }
+
+		public boolean isWarningEnabled() {
+			return warningEnabled;
+		}
+	}
+}
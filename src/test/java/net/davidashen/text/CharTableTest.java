@@ -0,0 +1,18 @@
+package net.davidashen.text;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class CharTableTest {
+
+	@Test
+	public void matchesCharacterForWholeBmp() {
+		for (int i = 0; i <= Character.MAX_VALUE; i++) {
+			char c = (char) i;
+			assertEquals(Integer.toHexString(i), Character.isLetter(c), CharTable.isLetter(c));
+			assertEquals(Integer.toHexString(i), Character.toLowerCase(c), CharTable.toLowerCase(c));
+		}
+	}
+}
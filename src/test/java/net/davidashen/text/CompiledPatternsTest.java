@@ -0,0 +1,100 @@
+package net.davidashen.text;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Random;
+
+import net.davidashen.util.List;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class CompiledPatternsTest {
+
+	@Test
+	public void matchesGeneralEngineOnRandomWords() throws Exception {
+		Hyphenator fast = new Hyphenator();
+		InputStream in = this.getClass().getResourceAsStream("/ushyph.tex");
+		fast.loadTable(in);
+		in.close();
+		fast.addPatterns("ä1b", "ß1", "1öx");
+		Hyphenator general = withoutCompiledPatterns(fast.getRuleSet());
+
+		Random random = new Random(4711);
+		String alphabet = "abcdefghijklmnopqrstuvwxyzABCXYZäößÄÖé";
+		for (int n = 0; n < 5000; n++) {
+			StringBuilder phrase = new StringBuilder();
+			int length = 1 + random.nextInt(20);
+			for (int i = 0; i < length; i++) {
+				phrase.append(alphabet.charAt(random.nextInt(alphabet.length())));
+			}
+			String word = phrase.toString();
+			assertEquals(word, general.hyphenate(word), fast.hyphenate(word));
+			assertEquals(word, general.hyphenate(word, 2, 3), fast.hyphenate(word, 2, 3));
+			assertEquals(word, general.lastBreakBefore(word, length / 2 + 1, 2, 2), fast.lastBreakBefore(word, length / 2 + 1, 2, 2));
+			int count = general.hyphenate(word, 2, 1).length() - length;
+			assertEquals(word, count, fast.countHyphenationPoints(word, 2, 1));
+			assertEquals(word, count, general.countHyphenationPoints(word, 2, 1));
+			assertEquals(word, count > 0, fast.canHyphenate(word, 2, 1));
+			assertEquals(word, count > 0, general.canHyphenate(word, 2, 1));
+			int[] fastBreaks = new int[length], generalBreaks = new int[length];
+			assertEquals(word, count, fast.hyphenateWord(word.toCharArray(), 0, length, 2, 1, fastBreaks));
+			assertEquals(word, count, general.hyphenateWord(word.toCharArray(), 0, length, 2, 1, generalBreaks));
+			assertArrayEquals(word, generalBreaks, fastBreaks);
+			assertEquals(word, general.hyphenationMask(word, 2, 1), fast.hyphenationMask(word, 2, 1));
+		}
+	}
+
+	@Test
+	public void matchesGeneralEngineBeyondLatin1() throws Exception {
+		Hyphenator fast = new Hyphenator();
+		fast.loadTable(new StringReader("\\patterns{a1b .ā1в aĀ2c 1σς ο1σ 2ǆa ǅ1 .ß2}"));
+		assertNotNull(((TreeNodeScanner) fast.getRuleSet()).getCompiledPatterns());
+		Hyphenator general = withoutCompiledPatterns(fast.getRuleSet());
+
+		Random random = new Random(4711);
+		String alphabet = "abcĀāвВΣσςοΟǄǅǆß";
+		for (int n = 0; n < 5000; n++) {
+			StringBuilder phrase = new StringBuilder();
+			int length = 1 + random.nextInt(12);
+			for (int i = 0; i < length; i++) {
+				phrase.append(alphabet.charAt(random.nextInt(alphabet.length())));
+			}
+			String word = phrase.toString();
+			assertEquals(word, general.hyphenate(word, 1, 1), fast.hyphenate(word, 1, 1));
+		}
+	}
+
+	@Test
+	public void tablesOverTheLimitAreNotCompiled() {
+		TreeNode root = TreeNode.createRoot();
+		new TreeNodeScanner(TreeNode.createRoot(), new HashMap<String, int[]>()).withPatterns("a1b", "b1c")
+				.addTo(root, new HashMap<String, int[]>());
+		// 5 states of 4 classes: none, a, b and c
+		assertNotNull(CompiledPatterns.compile(root, null, 2 * 5 * 4));
+		assertNull(CompiledPatterns.compile(root, null, 2 * 5 * 4 - 1));
+	}
+
+	/**
+	 * A hyphenator with the same rules, which only uses the list structures.
+	 */
+	private static Hyphenator withoutCompiledPatterns(final RuleDefinition rules) {
+		Hyphenator hyphenator = new Hyphenator();
+		hyphenator.setRuleSet(new RuleDefinition() {
+			public List getPatternTree(int c) {
+				return rules.getPatternTree(c);
+			}
+
+			public int[] getException(String word) {
+				return rules.getException(word);
+			}
+		});
+		return hyphenator;
+	}
+}
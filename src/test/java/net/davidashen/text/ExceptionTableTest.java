@@ -0,0 +1,44 @@
+package net.davidashen.text;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class ExceptionTableTest {
+
+	@Test
+	public void findsLowercaseFormOfSlice() {
+		Map<String, int[]> exceptions = new HashMap<String, int[]>();
+		for (int i = 0; i < 100; i++) {
+			exceptions.put("word" + (char) ('a' + i % 26) + i, new int[] {i});
+		}
+		exceptions.put("täble", new int[] {0, 1, 0, 0, 0});
+		ExceptionTable table = new ExceptionTable(exceptions);
+
+		char[] chars = " TÄBLE Table worda0 wordc2 words ".toCharArray();
+		assertArrayEquals(new int[] {0, 1, 0, 0, 0}, table.get(chars, 1, 5));
+		assertNull(table.get(chars, 7, 5));
+		assertArrayEquals(new int[] {0}, table.get(chars, 13, 6));
+		assertArrayEquals(new int[] {2}, table.get(chars, 20, 6));
+		assertNull(table.get(chars, 27, 5));
+		assertNull(table.get(chars, 1, 0));
+		assertEquals(1L << 2, table.getMask(table.find(chars, 1, 5)));
+		assertEquals(-1, table.find(chars, 7, 5));
+	}
+
+	@Test
+	public void detectsWordsLowercasedInContext() {
+		assertTrue(ExceptionTable.isLowerCasedPerChar("TÄBLE".toCharArray(), 0, 5));
+		assertFalse(ExceptionTable.isLowerCasedPerChar("ΟΔΟΣ".toCharArray(), 0, 4));
+		assertFalse(ExceptionTable.isLowerCasedPerChar("İSTANBUL".toCharArray(), 0, 8));
+		assertFalse(ExceptionTable.isLowerCasedPerChar("𐐀".toCharArray(), 0, 2));
+	}
+}
@@ -0,0 +1,240 @@
+package net.davidashen.text;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.LineNumberReader;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class HyphenationServerTest {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private Hyphenator hyphenator;
+	private HyphenationServer server;
+	private int port;
+
+	@Before
+	public void startServer() throws IOException {
+		hyphenator = new Hyphenator();
+		hyphenator.loadTable(this.getClass().getResourceAsStream("/ushyph.tex"));
+		server = new HyphenationServer(hyphenator, 2, 3, 4, 2);
+		port = server.start(0);
+	}
+
+	@After
+	public void stopServer() throws IOException {
+		server.close();
+	}
+
+	@Test
+	public void answersPipelinedRequestsInOrder() throws IOException {
+		List<String> lines = new ArrayList<String>();
+		LineNumberReader reader = new LineNumberReader(new InputStreamReader(
+				this.getClass().getResourceAsStream("/sherlock.txt"), UTF8));
+		String line;
+		while ((line = reader.readLine()) != null && lines.size() < 2000) {
+			lines.add(line);
+		}
+		reader.close();
+
+		Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+		try {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			for (String request : lines) {
+				byte[] bytes = request.getBytes(UTF8);
+				out.writeInt(bytes.length);
+				out.write(bytes);
+			}
+			out.flush();
+			socket.shutdownOutput();
+
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			for (String request : lines) {
+				assertEquals(hyphenator.hyphenate(request, 2, 3), readFrame(in));
+			}
+			assertEquals(-1, in.read());
+		} finally {
+			socket.close();
+		}
+	}
+
+	@Test(expected = EOFException.class)
+	public void closesConnectionOnOversizedRequest() throws IOException {
+		Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+		try {
+			DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+			out.writeInt(HyphenationServer.MAX_REQUEST_BYTES + 1);
+			out.flush();
+			readFrame(new DataInputStream(socket.getInputStream()));
+		} finally {
+			socket.close();
+		}
+	}
+
+	@Test
+	public void stopsReadingFromClientThatDoesNotRead() throws Exception {
+		final Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+		final AtomicLong written = new AtomicLong();
+		try {
+			StringBuilder text = new StringBuilder();
+			while (text.length() < 512 * 1024) {
+				text.append("hyphenation ");
+			}
+			final byte[] request = text.toString().getBytes(UTF8);
+			final long limit = 64L * HyphenationServer.MAX_PENDING_BYTES;
+			Thread client = new Thread(new Runnable() {
+				public void run() {
+					try {
+						DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+						while (written.get() < limit) {
+							out.writeInt(request.length);
+							out.write(request);
+							written.addAndGet(4 + request.length);
+						}
+					} catch (IOException e) {
+						// closed by the test
+					}
+				}
+			});
+			client.setDaemon(true);
+			client.start();
+
+			// Wait until the client cannot write any more
+			long last = -1;
+			while (written.get() != last) {
+				assertTrue("the server read all " + written.get() + " bytes", written.get() < limit);
+				last = written.get();
+				Thread.sleep(1000);
+			}
+			// What the server holds, plus the socket buffers of both sides
+			assertTrue(written.get() + " bytes written", written.get() < 8L * HyphenationServer.MAX_PENDING_BYTES);
+
+			// Other clients are still served
+			answersOneRequest();
+		} finally {
+			socket.close();
+		}
+	}
+
+	@Test
+	public void limitsConnections() throws IOException {
+		Socket first = new Socket(InetAddress.getLoopbackAddress(), port);
+		Socket second = new Socket(InetAddress.getLoopbackAddress(), port);
+		Socket third = new Socket(InetAddress.getLoopbackAddress(), port);
+		try {
+			assertEquals("sup-port", request(first, "support"));
+			assertEquals("sup-port", request(second, "support"));
+			third.setSoTimeout(500);
+			try {
+				request(third, "support");
+				fail("a third connection was served");
+			} catch (SocketTimeoutException e) {
+				// waiting to be accepted
+			}
+			first.close();
+			third.setSoTimeout(0);
+			assertEquals("sup-port", readFrame(new DataInputStream(third.getInputStream())).replace('\u00ad', '-'));
+		} finally {
+			first.close();
+			second.close();
+			third.close();
+		}
+	}
+
+	@Test
+	public void closesConnectionsWithQueuedRequestsOnClose() throws Exception {
+		BlockingHyphenator blocking = new BlockingHyphenator();
+		CountDownLatch started = blocking.started;
+		CountDownLatch release = blocking.release;
+		HyphenationServer blockingServer = new HyphenationServer(blocking, 2, 3, 1, 1);
+		Socket socket = new Socket(InetAddress.getLoopbackAddress(), blockingServer.start(0));
+		try {
+			socket.setSoTimeout(10000);
+			DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+			for (String request : new String[] {"one", "two", "three"}) {
+				out.writeInt(request.length());
+				out.write(request.getBytes(UTF8));
+			}
+			out.flush();
+			started.await();
+			// "two" and "three" are queued behind "one"
+			blockingServer.close();
+			release.countDown();
+
+			// The connection is closed, after at most the response to "one"
+			DataInputStream in = new DataInputStream(socket.getInputStream());
+			byte[] buffer = new byte[64];
+			int length = 0, read;
+			while ((read = in.read(buffer, length, buffer.length - length)) > 0) {
+				length += read;
+			}
+			assertTrue(length + " bytes", length == 0 || length == 4 + "one".length());
+		} finally {
+			release.countDown();
+			socket.close();
+			blockingServer.close();
+		}
+	}
+
+	/**
+	 * Answers each request unchanged once released.
+	 */
+	private static class BlockingHyphenator extends Hyphenator {
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		@Override
+		public String hyphenate(String phrase, int leftHyphenMin, int rightHyphenMin) {
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				// answer anyway
+			}
+			return phrase;
+		}
+	}
+
+	private void answersOneRequest() throws IOException {
+		Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+		try {
+			assertEquals("sup-port", request(socket, "support"));
+		} finally {
+			socket.close();
+		}
+	}
+
+	private static String request(Socket socket, String text) throws IOException {
+		DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+		byte[] bytes = text.getBytes(UTF8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+		out.flush();
+		return readFrame(new DataInputStream(socket.getInputStream())).replace('\u00ad', '-');
+	}
+
+	private static String readFrame(DataInputStream in) throws IOException {
+		byte[] response = new byte[in.readInt()];
+		in.readFully(response);
+		return new String(response, UTF8);
+	}
+}
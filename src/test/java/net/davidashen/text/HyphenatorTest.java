@@ -1,6 +1,8 @@
 package net.davidashen.text;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -207,6 +209,184 @@ public class HyphenatorTest {
 		expected.close();
 	}
 
+	@Test
+	public void canUpdateExceptions() throws Exception {
+		Hyphenator hyphenator = new Hyphenator();
+		hyphenator.loadTable(this.getClass().getResource("/ushyph.tex").openStream());
+		RuleDefinition original = hyphenator.getRuleSet();
+
+		hyphenator.addExceptions("sup-po-rt", "fi-les");
+		assertEquals("sup\u00adpo\u00adrt for pat\u00adtern fi\u00adles", hyphenator.hyphenate("support for pattern files"));
+
+		hyphenator.removeExceptions("support");
+		assertEquals("sup\u00adport for pat\u00adtern fi\u00adles", hyphenator.hyphenate("support for pattern files"));
+		assertNull(original.getException("files"));
+	}
+
+	@Test
+	public void matchesExceptionsAddedInUppercase() throws Exception {
+		Hyphenator hyphenator = new Hyphenator();
+		hyphenator.loadTable(this.getClass().getResource("/ushyph.tex").openStream());
+		hyphenator.hyphenateWord("table".toCharArray(), 0, 5, 1, 1, new int[5]);
+		hyphenator.addExceptions("Ta-ble");
+		assertEquals("Ta\u00adble TA\u00adBLE", hyphenator.hyphenate("Table TABLE", 1, 1));
+		int[] breaks = new int[5];
+		assertEquals(1, hyphenator.hyphenateWord("TABLE".toCharArray(), 0, 5, 1, 1, breaks));
+		assertEquals(2, breaks[0]);
+	}
+
+	@Test
+	public void canUpdatePatterns() throws Exception {
+		Hyphenator hyphenator = new Hyphenator();
+		hyphenator.loadTable(new java.io.StringReader("\\patterns{p1p t1t}"));
+		RuleDefinition original = hyphenator.getRuleSet();
+
+		hyphenator.addPatterns("fi1l");
+		assertEquals("sup\u00adport for pat\u00adtern fi\u00adles", hyphenator.hyphenate("support for pattern files"));
+
+		hyphenator.removePatterns("fi1l", "t1t");
+		hyphenator.addPatterns("r1t");
+		assertEquals("sup\u00adpor\u00adt for pattern files", hyphenator.hyphenate("support for pattern files"));
+
+		hyphenator.setRuleSet(original);
+		assertEquals("sup\u00adport for pat\u00adtern files", hyphenator.hyphenate("support for pattern files"));
+	}
+
+	@Test
+	public void canAddPatternsWithoutTable() {
+		Hyphenator hyphenator = new Hyphenator();
+		hyphenator.addPatterns("o1r");
+		assertEquals("wo\u00adrk", hyphenator.hyphenate("work"));
+	}
+
+	@Test
+	public void lastBreakBeforeMatchesHyphenate() throws Exception {
+		Hyphenator hyphenator = new Hyphenator();
+		hyphenator.loadTable(this.getClass().getResource("/ushyph.tex").openStream());
+		hyphenator.addExceptions("sup-po-rt");
+
+		for (String word : new String[] {"support", "hyphenation", "Antidisestablishmentarianism", "a", "pattern"}) {
+			for (int left = 1; left <= 3; left++) {
+				String hyphenated = hyphenator.hyphenate(word, left, 2);
+				for (int maxIndex = -1; maxIndex <= word.length() + 1; maxIndex++) {
+					// the index in the word of the last soft hyphen that fits
+					int expected = -1, index = 0;
+					for (char c : hyphenated.toCharArray()) {
+						if (c != '\u00ad') {
+							index++;
+						} else if (index <= maxIndex) {
+							expected = index;
+						}
+					}
+					assertEquals(word + " " + maxIndex, expected, hyphenator.lastBreakBefore(word, maxIndex, left, 2));
+				}
+			}
+		}
+		assertEquals(6, hyphenator.lastBreakBefore("hyphenation", 6, 2, 2));
+		assertEquals(5, hyphenator.lastBreakBefore(new StringBuilder("support"), 6, 1, 1));
+	}
+
+	@Test
+	public void predicateAndCountMatchHyphenate() throws Exception {
+		Hyphenator hyphenator = new Hyphenator();
+		hyphenator.loadTable(this.getClass().getResource("/ushyph.tex").openStream());
+		hyphenator.addExceptions("sup-po-rt");
+
+		for (String word : new String[] {"support", "hyphenation", "Antidisestablishmentarianism", "a", "pattern", "the"}) {
+			for (int left = 1; left <= 3; left++) {
+				for (int right = 1; right <= 3; right++) {
+					String hyphenated = hyphenator.hyphenate(word, left, right);
+					int count = hyphenated.length() - word.length();
+					assertEquals(word, count, hyphenator.countHyphenationPoints(word, left, right));
+					assertEquals(word, count > 0, hyphenator.canHyphenate(word, left, right));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void hyphenateWordMatchesHyphenate() throws Exception {
+		Hyphenator hyphenator = new Hyphenator();
+		hyphenator.loadTable(this.getClass().getResource("/ushyph.tex").openStream());
+		hyphenator.addExceptions("sup-po-rt");
+
+		String text = " Support hyphenation ΣΙΣΥΦΟΣ SUPPORT Antidisestablishmentarianism a pattern ";
+		char[] chars = text.toCharArray();
+		int[] breaks = new int[text.length()];
+		int start = -1;
+		for (int i = 0; i < chars.length; i++) {
+			if (chars[i] != ' ') {
+				start = start < 0 ? i : start;
+			} else if (start >= 0) {
+				String word = text.substring(start, i);
+				for (int left = 1; left <= 3; left++) {
+					String hyphenated = hyphenator.hyphenate(word, left, 2);
+					int count = hyphenator.hyphenateWord(chars, start, i - start, left, 2, breaks);
+					StringBuilder expected = new StringBuilder(word);
+					for (int n = count - 1; n >= 0; n--) {
+						expected.insert(breaks[n], '\u00ad');
+					}
+					assertEquals(hyphenated, expected.toString());
+				}
+				start = -1;
+			}
+		}
+	}
+
+	@Test
+	public void hyphenationMaskMatchesHyphenateWord() throws Exception {
+		Hyphenator hyphenator = new Hyphenator();
+		hyphenator.loadTable(this.getClass().getResource("/ushyph.tex").openStream());
+		hyphenator.addExceptions("sup-po-rt");
+
+		StringBuilder longWord = new StringBuilder();
+		while (longWord.length() < 64) {
+			longWord.append("hyphenation");
+		}
+		longWord.setLength(64);
+		int[] breaks = new int[64];
+		for (String word : new String[] {"SUPPORT", "hyphenation", "ΣΙΣΥΦΟΣ", "a", "", longWord.toString()}) {
+			for (int left = 1; left <= 3; left++) {
+				long expected = 0;
+				int count = hyphenator.hyphenateWord(word.toCharArray(), 0, word.length(), left, 1, breaks);
+				for (int i = 0; i < count; i++) {
+					expected |= 1L << breaks[i];
+				}
+				assertEquals(word, expected, hyphenator.hyphenationMask(word, left, 1));
+			}
+		}
+		assertEquals(1L << 3 | 1L << 5, hyphenator.hyphenationMask("support", 1, 1));
+		assertEquals(1L << 5, hyphenator.hyphenationMask("support", 4, 2));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void hyphenationMaskIsForShortWords() {
+		new Hyphenator().hyphenationMask(new char[65], 0, 65, 1, 1);
+	}
+
+	@Test
+	public void hyphenationLevelsMatchHyphenate() throws Exception {
+		Hyphenator hyphenator = new Hyphenator();
+		hyphenator.loadTable(new java.io.StringReader("\\patterns{a1b 2b b3c}\n\\hyphenation{ab-ab}"));
+
+		int[] levels = new int[8];
+		assertEquals(4, hyphenator.getHyphenationLevels("abcab", levels, 1));
+		assertArrayEquals(new int[] {0, 2, 3, 0, 1, 0, 0, 0}, levels);
+		assertEquals("ab\u00adca\u00adb", hyphenator.hyphenate("abcab"));
+
+		byte[] bytes = new byte[4];
+		assertEquals(3, hyphenator.getHyphenationLevels(new StringBuilder("ABab"), bytes, 0));
+		assertArrayEquals(new byte[] {0, 1, 0, 0}, bytes);
+		assertEquals(0, hyphenator.getHyphenationLevels("", bytes, 4));
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void hyphenationLevelsMustFit() throws Exception {
+		Hyphenator hyphenator = new Hyphenator();
+		hyphenator.addPatterns("a1b");
+		hyphenator.getHyphenationLevels("abab", new int[4], 2);
+	}
+
 	/**
 	 * This generates a new file to use as expected result in the test 'useRealGrammerFile' above.
 	 *  
@@ -0,0 +1,77 @@
+package net.davidashen.text;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class LatencyHistogramTest {
+
+	@Test
+	public void smallValuesAreExact() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 0; i < 16; i++) {
+			histogram.record(i);
+		}
+		assertEquals(16, histogram.getCount());
+		assertEquals(0, histogram.getValueAtPercentile(0));
+		assertEquals(7, histogram.getValueAtPercentile(50));
+		assertEquals(15, histogram.getValueAtPercentile(100));
+	}
+
+	@Test
+	public void largeValuesAreWithinPrecision() {
+		long[] values = {16, 17, 100, 1000, 123456, 1000000007L, Long.MAX_VALUE};
+		for (long value : values) {
+			LatencyHistogram histogram = new LatencyHistogram();
+			histogram.record(value);
+			long read = histogram.getValueAtPercentile(50);
+			assertTrue(value + " read as " + read, read >= value && read - value <= value / 16);
+		}
+	}
+
+	@Test
+	public void bucketsAreContiguous() {
+		for (int bucket = 1; bucket < (64 - 4) * 16; bucket++) {
+			long lowest = LatencyHistogram.highestValueOf(bucket - 1) + 1;
+			assertEquals(bucket, LatencyHistogram.bucketOf(lowest));
+			assertEquals(bucket, LatencyHistogram.bucketOf(LatencyHistogram.highestValueOf(bucket)));
+		}
+	}
+
+	@Test
+	public void percentilesOfMixedValues() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 0; i < 99; i++) {
+			histogram.record(1000);
+		}
+		histogram.record(1000000);
+		assertEquals(1023, histogram.getValueAtPercentile(99));
+		assertTrue(histogram.getValueAtPercentile(100) >= 1000000);
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getValueAtPercentile(99));
+	}
+
+	@Test
+	public void countsRecordsOfConcurrentThreads() throws InterruptedException {
+		final LatencyHistogram histogram = new LatencyHistogram();
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(new Runnable() {
+				public void run() {
+					for (int i = 0; i < 100000; i++) {
+						histogram.record(1000);
+					}
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(400000, histogram.getCount());
+		assertEquals(1023, histogram.getValueAtPercentile(50));
+	}
+}
@@ -0,0 +1,69 @@
+package net.davidashen.text;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class MetricsRecorderTest {
+
+	@Test
+	public void countsWordsAndExceptions() throws Exception {
+		Hyphenator hyphenator = new Hyphenator();
+		MetricsRecorder metrics = new MetricsRecorder();
+		hyphenator.setMetricsListener(metrics);
+		hyphenator.loadTable(new StringReader("\\patterns{b1a ba2r}\n\\hyphenation{foo-bar}"));
+
+		hyphenator.hyphenate("Foobar, bar and baz.");
+		hyphenator.hyphenate("foobar");
+
+		assertEquals(2, metrics.getCalls());
+		assertEquals(5, metrics.getWords());
+		assertEquals(2, metrics.getExceptionHits());
+		assertEquals(3, metrics.getPatternHits());
+		assertEquals(2, metrics.getLatency().getCount());
+		assertEquals(1, metrics.getTableLoads());
+		assertTrue(metrics.getTableLoadNanos() > 0);
+	}
+
+	@Test
+	public void reportsTableSizes() throws Exception {
+		final int[] sizes = new int[2];
+		Hyphenator hyphenator = new Hyphenator();
+		hyphenator.setMetricsListener(new MetricsListener() {
+			public void tableLoaded(int patterns, int exceptions, long nanos) {
+				sizes[0] = patterns;
+				sizes[1] = exceptions;
+			}
+		});
+		hyphenator.loadTable(new StringReader("\\patterns{b1a ba2r 1c}\n\\hyphenation{foo-bar as-so-ciate}"));
+
+		assertEquals(3, sizes[0]);
+		assertEquals(2, sizes[1]);
+	}
+
+	@Test
+	public void nullRemovesListener() {
+		Hyphenator hyphenator = new Hyphenator();
+		hyphenator.setMetricsListener(new MetricsRecorder());
+		hyphenator.setMetricsListener(null);
+		assertSame(MetricsListener.NONE, hyphenator.getMetricsListener());
+	}
+
+	@Test
+	public void resetClearsCounters() {
+		MetricsRecorder metrics = new MetricsRecorder();
+		metrics.hyphenated(3, 1, 1000);
+		metrics.tableLoaded(10, 1, 1000);
+		metrics.reset();
+
+		assertEquals(0, metrics.getCalls());
+		assertEquals(0, metrics.getWords());
+		assertEquals(0, metrics.getTableLoads());
+		assertEquals(0, metrics.getLatency().getCount());
+	}
+}
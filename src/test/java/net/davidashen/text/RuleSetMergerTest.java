@@ -0,0 +1,76 @@
+package net.davidashen.text;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class RuleSetMergerTest {
+
+	@Test
+	public void laterTablesTakePrecedence() throws Exception {
+		RuleDefinition rules = new RuleSetMerger()
+				.add(new StringReader("\\patterns{b1a b2a3r}\n\\hyphenation{as-so-ciate foo-bar}"))
+				.add(new ByteArrayInputStream("\\patterns{b3a ba4z}\n\\hyphenation{asso-ciate}".getBytes("ISO-8859-1")), identity())
+				.merge();
+
+		assertEquals("((b [0, 0] (a [0, 3, 0] (r [0, 2, 3, 0]) (z [0, 0, 4, 0]))))", rules.getPatternTree('b').describe());
+		assertArrayEquals(new int[]{0,0,0,1,0,0,0,0,0,0}, rules.getException("associate"));
+		assertArrayEquals(new int[]{0,0,1,0,0,0,0}, rules.getException("foobar"));
+	}
+
+	@Test
+	public void canMergeRuleSets() throws Exception {
+		Hyphenator hyphenator = new Hyphenator();
+		hyphenator.loadTable(new StringReader("\\patterns{b1a}\n\\hyphenation{foo-bar}"));
+		hyphenator.addExceptions("ba-z");
+		hyphenator.removeExceptions("foobar");
+
+		RuleDefinition rules = new RuleSetMerger()
+				.add(new StringReader("\\patterns{ba2r}\n\\hyphenation{as-so-ciate}"))
+				.add(hyphenator.getRuleSet())
+				.merge();
+
+		assertEquals("((b [0, 0] (a [0, 1, 0] (r [0, 0, 2, 0]))))", rules.getPatternTree('b').describe());
+		assertArrayEquals(new int[]{0,1,0,0}, rules.getException("baz"));
+		assertArrayEquals(new int[]{0,1,0,1,0,0,0,0,0,0}, rules.getException("associate"));
+		assertNull(rules.getException("foobar"));
+	}
+
+	@Test
+	public void mergedRuleSetsAreNotChangedByLaterTables() throws Exception {
+		RuleSetMerger merger = new RuleSetMerger().add(new StringReader("\\patterns{b1a}"));
+		RuleDefinition first = merger.merge();
+		RuleDefinition second = merger.add(new StringReader("\\patterns{ba2r}\n\\hyphenation{foo-bar}")).merge();
+
+		assertEquals("((b [0, 0] (a [0, 1, 0])))", first.getPatternTree('b').describe());
+		assertNull(first.getException("foobar"));
+		assertEquals("((b [0, 0] (a [0, 1, 0] (r [0, 0, 2, 0]))))", second.getPatternTree('b').describe());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsOtherRuleSets() {
+		new RuleSetMerger().add(new RuleDefinition() {
+			public int[] getException(String word) {
+				return null;
+			}
+
+			public net.davidashen.util.List getPatternTree(int c) {
+				return new net.davidashen.util.List();
+			}
+		});
+	}
+
+	private static int[] identity() {
+		int[] codelist = new int[256];
+		for (int i = 0; i != 256; ++i) {
+			codelist[i] = i;
+		}
+		return codelist;
+	}
+}
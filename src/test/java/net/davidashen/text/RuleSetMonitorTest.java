@@ -0,0 +1,136 @@
+package net.davidashen.text;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.InputStream;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class RuleSetMonitorTest {
+
+	@Test
+	public void countsPatternsNodesAndExceptions() throws Exception {
+		Hyphenator hyphenator = new Hyphenator();
+		hyphenator.loadTable(new StringReader("\\patterns{b1a ba2r ab3c}\n\\hyphenation{foo-bar}"));
+		RuleSetMonitor monitor = new RuleSetMonitor(hyphenator);
+
+		assertEquals(3, monitor.getPatternCount());
+		// b, ba, bar, a, ab, abc
+		assertEquals(6, monitor.getNodeCount());
+		assertEquals(1, monitor.getExceptionCount());
+		assertTrue(monitor.getLoadTimeMillis() >= 0);
+		assertTrue(monitor.getLoadedAt() > 0);
+
+		hyphenator.addExceptions("as-so-ciate");
+		hyphenator.removeExceptions("foobar", "unknown");
+		hyphenator.addPatterns("x1y");
+		assertEquals(4, monitor.getPatternCount());
+		assertEquals(1, monitor.getExceptionCount());
+	}
+
+	@Test
+	public void estimatesSizeOfRealTable() throws Exception {
+		Hyphenator hyphenator = new Hyphenator();
+		InputStream in = this.getClass().getResourceAsStream("/ushyph.tex");
+		hyphenator.loadTable(in);
+		in.close();
+		RuleSetMonitor monitor = new RuleSetMonitor(hyphenator);
+
+		assertEquals(4810, monitor.getPatternCount());
+		assertEquals(14, monitor.getExceptionCount());
+		// At least a node object, segment and values per node
+		long bytes = monitor.getEstimatedBytes();
+		assertTrue("estimated " + bytes, bytes > monitor.getNodeCount() * 100L && bytes < 10000000);
+	}
+
+	@Test
+	public void reportsMinusOneWithoutTable() {
+		RuleSetMonitor monitor = new RuleSetMonitor(new Hyphenator());
+		assertEquals(-1, monitor.getPatternCount());
+		assertEquals(-1, monitor.getLoadedAt());
+	}
+
+	@Test
+	public void canRegisterMBean() throws Exception {
+		Hyphenator hyphenator = new Hyphenator();
+		hyphenator.loadTable(new StringReader("\\patterns{b1a ba2r}"));
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = hyphenator.registerMBean("en-US");
+		try {
+			assertEquals("\"en-US\"", name.getKeyProperty("name"));
+			assertEquals(2, server.getAttribute(name, "PatternCount"));
+		} finally {
+			hyphenator.unregisterMBean();
+		}
+		assertFalse(server.isRegistered(name));
+	}
+
+	@Test
+	public void secondRegistrationOfNameInUseFails() throws Exception {
+		Hyphenator first = new Hyphenator();
+		Hyphenator second = new Hyphenator();
+		second.loadTable(new StringReader("\\patterns{b1a}"));
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = first.registerMBean("second");
+		try {
+			try {
+				second.registerMBean("second");
+				fail("registered twice");
+			} catch (InstanceAlreadyExistsException e) {
+				// in use by the first hyphenator
+			}
+			assertEquals(-1, server.getAttribute(name, "PatternCount"));
+
+			first.unregisterMBean();
+			assertEquals(name, second.registerMBean("second"));
+			assertEquals(1, server.getAttribute(name, "PatternCount"));
+			// unregistering again does not remove the MBean of the second hyphenator
+			first.unregisterMBean();
+			assertTrue(server.isRegistered(name));
+		} finally {
+			first.unregisterMBean();
+			second.unregisterMBean();
+		}
+		assertFalse(server.isRegistered(name));
+	}
+
+	@Test
+	public void discardedHyphenatorCanBeCollected() throws Exception {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		Hyphenator discarded = new Hyphenator();
+		discarded.loadTable(new StringReader("\\patterns{b1a ba2r}"));
+		ObjectName name = discarded.registerMBean("discarded");
+		assertEquals(2, server.getAttribute(name, "PatternCount"));
+		WeakReference<Hyphenator> reference = new WeakReference<Hyphenator>(discarded);
+		discarded = null;
+		for (int i = 0; i < 100 && reference.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertNull("the MBean keeps the hyphenator alive", reference.get());
+		assertEquals(-1, server.getAttribute(name, "PatternCount"));
+
+		// The name can be used again
+		Hyphenator reloaded = new Hyphenator();
+		reloaded.loadTable(new StringReader("\\patterns{b1a}"));
+		assertEquals(name, reloaded.registerMBean("discarded"));
+		try {
+			assertEquals(1, server.getAttribute(name, "PatternCount"));
+		} finally {
+			reloaded.unregisterMBean();
+		}
+		assertFalse(server.isRegistered(name));
+	}
+}
@@ -0,0 +1,60 @@
+package net.davidashen.text;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class TableWatcherTest {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	@Test
+	public void reloadsChangedTable() throws Exception {
+		Path dir = Files.createTempDirectory("texhyphj");
+		Path table = dir.resolve("hyph.tex");
+		Files.write(table, "\\patterns{o1r}".getBytes(UTF8));
+
+		Hyphenator hyphenator = new Hyphenator();
+		TableWatcher watcher = new TableWatcher(hyphenator, table, UTF8);
+		try {
+			watcher.start();
+			assertTrue(((TreeNodeScanner) hyphenator.getRuleSet()).isCompiled());
+			assertEquals("wo\u00adrk", hyphenator.hyphenate("work"));
+
+			Files.write(table, "\\patterns{r1k}".getBytes(UTF8));
+			long timeout = System.currentTimeMillis() + 30000;
+			while (!"wor\u00adk".equals(hyphenator.hyphenate("work")) && System.currentTimeMillis() < timeout) {
+				Thread.sleep(50);
+			}
+			assertEquals("wor\u00adk", hyphenator.hyphenate("work"));
+		} finally {
+			watcher.close();
+			Files.delete(table);
+			Files.delete(dir);
+		}
+	}
+
+	@Test
+	public void reloadsLegacyTable() throws Exception {
+		File table = File.createTempFile("hyph", ".tex");
+		try {
+			Files.write(table.toPath(), "\\patterns{\\\"o1r}".getBytes(UTF8));
+			int[] codelist = new int[256];
+			for (int i = 0; i != 256; ++i) {
+				codelist[i] = i;
+			}
+			Hyphenator hyphenator = new Hyphenator();
+			new TableWatcher(hyphenator, table.toPath(), codelist).reload();
+			assertTrue(((TreeNodeScanner) hyphenator.getRuleSet()).isCompiled());
+			assertEquals("wö\u00adrk", hyphenator.hyphenate("wörk"));
+		} finally {
+			table.delete();
+		}
+	}
+}
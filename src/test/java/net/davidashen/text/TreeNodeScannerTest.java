@@ -0,0 +1,138 @@
+package net.davidashen.text;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class TreeNodeScannerTest {
+
+	@Test
+	public void exceptionUpdatesShareCompiledPatterns() {
+		TreeNodeScanner scanner = scanner().withPatterns("a1b", "b1c");
+		CompiledPatterns patterns = scanner.getCompiledPatterns();
+		TreeNodeScanner updated = scanner.withExceptions("ab-c").withoutExceptions("abc");
+		assertSame(patterns, updated.getCompiledPatterns());
+		assertSame(scanner.getPatternTree('a'), updated.getPatternTree('a'));
+	}
+
+	@Test
+	public void missingPatternTreeIsNotShared() {
+		TreeNodeScanner scanner = scanner().withPatterns("a1b");
+		scanner.getPatternTree('z').snoc("modified");
+		assertTrue(scanner.getPatternTree('z').isEmpty());
+		assertTrue(scanner().getPatternTree('z').isEmpty());
+	}
+
+	@Test
+	public void patternUpdatesShareExceptionTable() {
+		TreeNodeScanner scanner = scanner().withExceptions("ab-c");
+		ExceptionTable table = scanner.getExceptionTable();
+		TreeNodeScanner updated = scanner.withPatterns("a1b").withoutPatterns("ab");
+		assertSame(table, updated.getExceptionTable());
+	}
+
+	@Test
+	public void exceptionEditsStayLogarithmic() {
+		TreeNodeScanner scanner = scanner().withExceptions("ba-se");
+		TreeNodeScanner first = scanner;
+		for (int n = 0; n < 1000; n++) {
+			scanner = scanner.withExceptions("w" + word(n) + "-x");
+		}
+		scanner = scanner.withoutExceptions("base");
+		for (int n = 0; n < 1000; n++) {
+			int[] expected = new int[word(n).length() + 3];
+			expected[word(n).length()] = 1;
+			assertArrayEquals(expected, scanner.getException("w" + word(n) + "x"));
+		}
+		assertNull(scanner.getException("base"));
+		assertArrayEquals(new int[] {0, 1, 0, 0, 0}, first.getException("base"));
+		assertEquals(1000, scanner.getExceptionCount());
+		Map<String, int[]> all = new HashMap<String, int[]>();
+		scanner.addTo(null, all);
+		assertEquals(1000, all.size());
+
+		ExceptionEdits edits = ExceptionEdits.with(null, single("a"));
+		for (int n = 1; n < 1024; n++) {
+			edits = ExceptionEdits.with(edits, single(word(n)));
+			assertTrue(edits.getLayerCount() <= 32 - Integer.numberOfLeadingZeros(n + 1));
+		}
+	}
+
+	@Test
+	public void acceptsExceptionsWithoutHyphens() {
+		TreeNodeScanner scanner = scanner().withExceptions("table");
+		assertArrayEquals(new int[6], scanner.getException("table"));
+	}
+
+	@Test
+	public void lowercasesExceptions() {
+		TreeNodeScanner scanner = scanner().withExceptions("Ta-ble", "TA-BU");
+		assertArrayEquals(new int[] {0, 1, 0, 0, 0, 0}, scanner.getException("table"));
+		assertArrayEquals(new int[] {0, 1, 0, 0, 0}, scanner.getException("tabu"));
+		assertNull(scanner.withoutExceptions("TABLE").getException("table"));
+	}
+
+	@Test
+	public void ignoresCharactersOtherThanLetters() {
+		TreeNodeScanner scanner = scanner().withExceptions("o'-clock", "4-ever-more");
+		assertArrayEquals(new int[] {1, 0, 0, 0, 0, 0, 0}, scanner.getException("oclock"));
+		assertArrayEquals(new int[] {0, 0, 0, 1, 0, 0, 0, 0, 0}, scanner.getException("evermore"));
+	}
+
+	@Test
+	public void updatedExceptionTableMatchesRebuiltOne() {
+		TreeNodeScanner scanner = scanner().withExceptions("ba-se", "ta-ble");
+		scanner.getExceptionTable();
+		Random random = new Random(4711);
+		for (int n = 0; n < 200; n++) {
+			String word = word(random.nextInt(50));
+			scanner = random.nextBoolean() ? scanner.withExceptions(word + "-x") : scanner.withoutExceptions(word + "x");
+			Map<String, int[]> all = new HashMap<String, int[]>();
+			scanner.addTo(null, all);
+			ExceptionTable rebuilt = new ExceptionTable(all);
+			ExceptionTable updated = scanner.getExceptionTable();
+			assertEquals(rebuilt.size(), updated.size());
+			for (int i = 0; i < 50; i++) {
+				char[] chars = (word(i) + "x").toCharArray();
+				assertSame(rebuilt.get(chars, 0, chars.length), updated.get(chars, 0, chars.length));
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsExceptionsStartingWithHyphen() {
+		scanner().withExceptions("-x");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsExceptionsWithoutLetters() {
+		scanner().withExceptions("");
+	}
+
+	private static TreeNodeScanner scanner() {
+		return new TreeNodeScanner(TreeNode.createRoot(), new HashMap<String, int[]>());
+	}
+
+	private static String word(int n) {
+		StringBuilder word = new StringBuilder();
+		for (int i = n; i > 0; i /= 26) {
+			word.append((char) ('a' + i % 26));
+		}
+		return word.append('a').toString();
+	}
+
+	private static Map<String, int[]> single(String word) {
+		Map<String, int[]> edit = new HashMap<String, int[]>();
+		edit.put(word, ExceptionEdits.REMOVED);
+		return edit;
+	}
+}
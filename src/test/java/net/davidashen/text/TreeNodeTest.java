@@ -257,6 +257,32 @@ public class TreeNodeTest {
 				root.toList().describe());
 	}	
 	
+	@Test
+	public void withChildLeavesOriginalTreeUnchanged() {
+		TreeNode root = TreeNode.createRoot();
+		root.createChildFromPattern("x1a");
+		root.createChildFromPattern("z1b");
+
+		TreeNode updated = root.withChild("xab", new int[] { 0, 0, 2, 0 });
+
+		assertEquals("((x [0, 0] (a [0, 1, 0])) (z [0, 0] (b [0, 1, 0])))", root.toList().describe());
+		assertEquals("((x [0, 0] (a [0, 1, 0] (b [0, 0, 2, 0]))) (z [0, 0] (b [0, 1, 0])))", updated.toList().describe());
+		assertThat("Unchanged nodes are shared", updated.getChild('z') == root.getChild('z'));
+	}
+
+	@Test
+	public void withoutChildRemovesUnusedNodes() {
+		TreeNode root = TreeNode.createRoot();
+		root.createChildFromPattern("x1a");
+		root.createChildFromPattern("z1bc");
+
+		TreeNode updated = root.withoutChild("zbc").withoutChild("x");
+
+		assertEquals("((x [0, 0] (a [0, 1, 0])) (z [0, 0] (b [0, 0, 0] (c [0, 1, 0, 0]))))", root.toList().describe());
+		assertEquals("((x [0, 0] (a [0, 1, 0])))", updated.toList().describe());
+		assertThat("Unknown rule", root.withoutChild("q") == root);
+	}
+
 	@Test
 	public void generatedListStructureWorksWithHyphenator() {
 		TreeNode root = TreeNode.createRoot();
@@ -94,6 +94,18 @@ public class Utf8TexParserTest {
 		assertNull(exception);
 	} 
 	
+	@Test
+	public void patternTreesOutsideOfAlphabetAreEmpty() throws Exception {
+		Utf8TexParser parser = new Utf8TexParser();
+		RuleDefinition result = parser.parse("\\patterns{b1a c1a}");
+
+		assertEquals("((b [0, 0] (a [0, 1, 0])))", result.getPatternTree('b').describe());
+		assertEquals("()", result.getPatternTree('a').describe());
+		assertEquals("()", result.getPatternTree('d').describe());
+		assertEquals("()", result.getPatternTree('\u00e5').describe());
+		assertThat("Trees are only created once", result.getPatternTree('c') == result.getPatternTree('c'));
+	}
+
 	@Test
 	public void shouldHandleAnyPattenOrder() throws Exception {
 		Utf8TexParser parser = new Utf8TexParser();
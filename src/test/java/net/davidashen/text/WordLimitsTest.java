@@ -0,0 +1,72 @@
+package net.davidashen.text;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.StringReader;
+
+import net.davidashen.text.WordLimits.SkipReason;
+
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class WordLimitsTest {
+	private Hyphenator hyphenator;
+	private MetricsRecorder metrics;
+
+	@Before
+	public void setUp() throws Exception {
+		hyphenator = new Hyphenator();
+		metrics = new MetricsRecorder();
+		hyphenator.setMetricsListener(metrics);
+		hyphenator.loadTable(new StringReader("\\patterns{a1b b1c g1v}"));
+	}
+
+	@Test
+	public void hyphenatesEverythingByDefault() {
+		assertSame(WordLimits.NONE, hyphenator.getWordLimits());
+		assertEquals("a­ba­b­c aG­VsbG8", hyphenator.hyphenate("ababc aGVsbG8"));
+		assertEquals(0, metrics.getSkippedWords());
+	}
+
+	@Test
+	public void skipsLongWords() {
+		hyphenator.setWordLimits(WordLimits.NONE.withMaxWordLength(4));
+		assertEquals("ababc a­ba", hyphenator.hyphenate("ababc aba"));
+		assertEquals(1, metrics.getSkippedWords(SkipReason.LENGTH));
+		assertEquals(1, metrics.getWords());
+	}
+
+	@Test
+	public void skipsWordsOverBudget() {
+		hyphenator.setWordLimits(WordLimits.NONE.withWorkBudget(7));
+		assertEquals("a­ba ababc a­ba­b", hyphenator.hyphenate("aba ababc abab"));
+		assertEquals(1, metrics.getSkippedWords(SkipReason.BUDGET));
+		// the budget is per call
+		assertEquals("a­ba­b­c", hyphenator.hyphenate("ababc"));
+		assertEquals(1, metrics.getSkippedWords(SkipReason.BUDGET));
+	}
+
+	@Test
+	public void skipsWordsWithoutVowels() {
+		hyphenator.setWordLimits(WordLimits.NONE.withVowels("aeiou"));
+		assertEquals("bcbc A­B", hyphenator.hyphenate("bcbc AB"));
+		assertEquals(1, metrics.getSkippedWords(SkipReason.NO_VOWEL));
+	}
+
+	@Test
+	public void skipsWordsInMixedCase() {
+		hyphenator.setWordLimits(WordLimits.NONE.withMixedCaseSkipped(true));
+		assertEquals("aGVsbG8 A­BA­B A­ba­b", hyphenator.hyphenate("aGVsbG8 ABAB Abab"));
+		assertEquals(1, metrics.getSkippedWords(SkipReason.MIXED_CASE));
+		assertEquals(2, metrics.getWords());
+	}
+
+	@Test
+	public void nullRemovesLimits() {
+		hyphenator.setWordLimits(WordLimits.NONE.withMaxWordLength(1));
+		hyphenator.setWordLimits(null);
+		assertSame(WordLimits.NONE, hyphenator.getWordLimits());
+	}
+}
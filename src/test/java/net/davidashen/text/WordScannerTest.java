@@ -0,0 +1,66 @@
+package net.davidashen.text;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class WordScannerTest {
+	private static final String CHARACTERS = "abcXYZ  \t.,;:0123456789<>/=\"-‐äÉ —ж中𝐀";
+
+	@Test
+	public void findsEndsOfRuns() {
+		Random random = new Random(4711);
+		for (int n = 0; n < 2000; n++) {
+			char[] chars = randomPhrase(random);
+			for (int from = 0; from < chars.length; from++) {
+				assertEquals(new String(chars), expectedNonLetterEnd(chars, from), WordScanner.skipNonLetters(chars, from));
+				assertEquals(new String(chars), expectedLetterEnd(chars, from), WordScanner.skipLetters(chars, from));
+			}
+		}
+	}
+
+	@Test
+	public void skipsLongRuns() {
+		String markup = "<> 12 345,67 | 3.14159 / 2 = 1.57;\t";
+		StringBuilder phrase = new StringBuilder();
+		for (int i = 0; i < 10; i++) {
+			phrase.append(markup);
+		}
+		int markupLength = phrase.length();
+		phrase.append("Hyphenation");
+		int end = phrase.length();
+		char[] chars = (phrase.toString() + "\u0000").toCharArray();
+		assertEquals(markupLength, WordScanner.skipNonLetters(chars, 0));
+		assertEquals(end, WordScanner.skipLetters(chars, markupLength));
+		assertEquals(end, WordScanner.skipNonLetters(chars, end));
+	}
+
+	private static char[] randomPhrase(Random random) {
+		int length = random.nextInt(80);
+		char[] chars = new char[length + 1];
+		// runs of letters and non-letters, as in text
+		for (int i = 0; i < length; i++) {
+			chars[i] = i > 0 && random.nextInt(4) > 0 ? chars[i - 1] : CHARACTERS.charAt(random.nextInt(CHARACTERS.length()));
+		}
+		return chars;
+	}
+
+	private static int expectedNonLetterEnd(char[] chars, int from) {
+		int i = from;
+		while (!Character.isLetter(chars[i]) && chars[i] != 0 && chars[i] != '-' && chars[i] != '‐') {
+			i++;
+		}
+		return i;
+	}
+
+	private static int expectedLetterEnd(char[] chars, int from) {
+		int i = from;
+		while (Character.isLetter(chars[i])) {
+			i++;
+		}
+		return i;
+	}
+}
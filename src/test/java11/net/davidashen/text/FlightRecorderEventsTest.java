@@ -0,0 +1,61 @@
+package net.davidashen.text;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class FlightRecorderEventsTest {
+
+	@Test
+	public void recordsTableLoadsAndHyphenation() throws Exception {
+		Path file = Files.createTempFile("texhyphj", ".jfr");
+		try {
+			Recording recording = new Recording();
+			try {
+				recording.enable("net.davidashen.text.TableLoad");
+				recording.enable("net.davidashen.text.RuleCompile");
+				recording.enable("net.davidashen.text.Hyphenate").withThreshold(Duration.ZERO);
+				recording.start();
+				assertTrue(FlightRecorderEvents.isRecording());
+
+				Hyphenator hyphenator = new Hyphenator();
+				hyphenator.loadTable(new StringReader("\\patterns{a1b}"));
+				hyphenator.hyphenate("abab");
+				hyphenator.hyphenateWord("abab".toCharArray(), 0, 4, 1, 1, new int[4]);
+				recording.stop();
+				recording.dump(file);
+			} finally {
+				recording.close();
+			}
+
+			Set<String> names = new HashSet<String>();
+			Set<String> structures = new HashSet<String>();
+			for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+				names.add(event.getEventType().getName());
+				if (event.hasField("structure")) {
+					structures.add(event.getString("structure"));
+				}
+			}
+			assertTrue(names.toString(), names.contains("net.davidashen.text.TableLoad"));
+			assertTrue(names.toString(), names.contains("net.davidashen.text.RuleCompile"));
+			assertTrue(names.toString(), names.contains("net.davidashen.text.Hyphenate"));
+			assertTrue(structures.toString(), structures.contains("lists"));
+			assertTrue(structures.toString(), structures.contains("transition table"));
+			assertTrue(structures.toString(), structures.contains("exception table"));
+		} finally {
+			Files.delete(file);
+		}
+	}
+}